@@ -0,0 +1,153 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 长按拖动选择的结束处理：选择失败时屏幕上的月份要恢复成rangeDays的状态
+ * DateView长按和抬起时调用的就是Adapter的OnDayDragListener和OnDayClickListener，这里直接调用
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatePickAdapterDragTest {
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 4000;
+
+    @Rule
+    public UiThreadTestRule mUiThreadTestRule = new UiThreadTestRule();
+
+    private TypedArray mTypedArray;
+    private DateViewTheme mTheme;
+    private RecyclerView mRecyclerView;
+    private DatePikerView.DataModel mDataModel;
+    private final List<DatePickerController.FailEven> mFails = new ArrayList<>();
+    private final DatePickerController mController = new DatePickerController() {
+        @Override
+        public void onDayOfMonthSelected(DatePickAdapter.CalendarDay startDay, DatePickAdapter.CalendarDay endDay) {
+        }
+
+        @Override
+        public void alertSelectedFail(FailEven even) {
+            mFails.add(even);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mTypedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        mTheme = new DateViewTheme(mTypedArray);
+        mRecyclerView = new RecyclerView(context);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+    }
+
+    @After
+    public void tearDown() {
+        mTypedArray.recycle();
+    }
+
+    @Test
+    @UiThreadTest
+    public void longPressAndReleaseOnBlockedDay_keepsSelection() throws Exception {
+        int first = epochDay(3);
+        int last = epochDay(6);
+        int blocked = epochDay(10);
+        DatePickAdapter adapter = newAdapter(first, last, 0);
+        BlockedDays blockedDays = new BlockedDays();
+        blockedDays.block(blocked);
+        adapter.setBlockedDays(blockedDays);
+        layout();
+
+        DateView view = (DateView) mRecyclerView.getChildAt(0);
+        // 不可选的日期不能开始拖动，抬起时按点击处理
+        assertFalse(adapter.onDayDragStart(view, blocked));
+        adapter.onDayClick(view, DatePickAdapter.newCalendarDay(blocked));
+        layout();
+
+        assertEquals(1, mFails.size());
+        assertEquals(DatePickerController.FailEven.CONTAIN_INVALID, mFails.get(0));
+        assertSelection(first, last);
+    }
+
+    @Test
+    @UiThreadTest
+    public void longPressAndReleaseFailingSelect_restoresSelection() throws Exception {
+        int first = epochDay(3);
+        int pressed = epochDay(5);
+        // 3号到5号只有3天，少于5天
+        DatePickAdapter adapter = newAdapter(first, CalendarUtils.NO_DAY, 5);
+        layout();
+
+        DateView view = (DateView) mRecyclerView.getChildAt(0);
+        assertTrue(adapter.onDayDragStart(view, pressed));
+        assertEquals(pressed, view.getSelectedStartEpochDay());
+        adapter.onDayDragEnd(view, false);
+        layout();
+
+        assertEquals(1, mFails.size());
+        assertEquals(DatePickerController.FailEven.NO_REACH_LEAST_DAYS, mFails.get(0));
+        assertSelection(first, CalendarUtils.NO_DAY);
+    }
+
+    /**
+     * 2030年5月开始的3个月，都在今天之后
+     */
+    private DatePickAdapter newAdapter(int first, int last, int leastDaysNum) {
+        DatePikerView.DataModel dataModel = mDataModel = new DatePikerView.DataModel();
+        dataModel.yearStart = 2030;
+        dataModel.monthStart = Calendar.MAY;
+        dataModel.monthCount = 3;
+        dataModel.leastDaysNum = leastDaysNum;
+        dataModel.dragToSelect = true;
+        dataModel.selectedDays = new DatePickAdapter.SelectedDays<>(DatePickAdapter.newCalendarDay(first),
+                DatePickAdapter.newCalendarDay(last));
+        DatePickAdapter adapter = new DatePickAdapter(InstrumentationRegistry.getTargetContext(), mTheme, mController, dataModel);
+        mRecyclerView.setAdapter(adapter);
+        return adapter;
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 保存的选择和屏幕上所有月份显示的选择都和预期一致
+     */
+    private void assertSelection(int first, int last) {
+        DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays = mDataModel.selectedDays;
+        assertEquals(first, selectedDays.getFirst().getEpochDay());
+        assertEquals(last, selectedDays.getLast() != null ? selectedDays.getLast().getEpochDay() : CalendarUtils.NO_DAY);
+        assertTrue(mRecyclerView.getChildCount() > 1);
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            DateView child = (DateView) mRecyclerView.getChildAt(i);
+            assertEquals(first, child.getSelectedStartEpochDay());
+            assertEquals(last, child.getSelectedEndEpochDay());
+        }
+    }
+
+    private static int epochDay(int dayOfMonth) {
+        return new DatePickAdapter.CalendarDay(2030, Calendar.MAY, dayOfMonth).getEpochDay();
+    }
+}
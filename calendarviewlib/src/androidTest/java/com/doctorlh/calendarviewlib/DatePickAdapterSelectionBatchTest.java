@@ -0,0 +1,166 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量修改选择：提交时只回调一次，只刷新选择状态变化的月份，规则和点击一致
+ * 列表从2030年5月开始，共6个月，位置0~5对应5月~10月
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatePickAdapterSelectionBatchTest {
+    private TypedArray mTypedArray;
+    private DateViewTheme mTheme;
+    private DatePikerView.DataModel mDataModel;
+    private int mRangeCallbacks;                                    // onDayOfMonthSelected的次数
+    private int mIntervalsCallbacks;                                // onDayIntervalsSelected的次数
+    private final List<DatePickerController.FailEven> mFails = new ArrayList<>();
+    private final List<String> mChangedRanges = new ArrayList<>();  // 刷新的位置，格式为"开始+数量"
+    private final MultiDatePickerController mController = new MultiDatePickerController() {
+        @Override
+        public void onDayIntervalsSelected(DayIntervals intervals) {
+            mIntervalsCallbacks++;
+        }
+
+        @Override
+        public void onDayOfMonthSelected(DatePickAdapter.CalendarDay startDay, DatePickAdapter.CalendarDay endDay) {
+            mRangeCallbacks++;
+        }
+
+        @Override
+        public void alertSelectedFail(FailEven even) {
+            mFails.add(even);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mTypedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        mTheme = new DateViewTheme(mTypedArray);
+    }
+
+    @After
+    public void tearDown() {
+        mTypedArray.recycle();
+    }
+
+    @Test
+    public void commitRange_callsBackOnceAndRefreshesChangedMonths() throws Exception {
+        DatePickAdapter adapter = newAdapter(SelectionEngine.MODE_RANGE, epochDay(Calendar.MAY, 3), epochDay(Calendar.MAY, 6), null);
+
+        SelectionBatch batch = adapter.beginSelection();
+        // 中间的修改不提交，6月不需要刷新
+        batch.setRange(DatePickAdapter.newCalendarDay(epochDay(Calendar.JUNE, 1)),
+                DatePickAdapter.newCalendarDay(epochDay(Calendar.JUNE, 3)));
+        batch.setRange(DatePickAdapter.newCalendarDay(epochDay(Calendar.JULY, 10)),
+                DatePickAdapter.newCalendarDay(epochDay(Calendar.JULY, 12)));
+        assertTrue(batch.commit());
+
+        assertEquals(1, mRangeCallbacks);
+        assertTrue(mFails.isEmpty());
+        assertEquals(Arrays.asList("0+1", "2+1"), mChangedRanges);
+        assertEquals(epochDay(Calendar.JULY, 10), mDataModel.selectedDays.getFirst().getEpochDay());
+        assertEquals(epochDay(Calendar.JULY, 12), mDataModel.selectedDays.getLast().getEpochDay());
+    }
+
+    @Test
+    public void commitRange_beforeToday_failsWithoutRefresh() throws Exception {
+        DatePickAdapter adapter = newAdapter(SelectionEngine.MODE_RANGE, epochDay(Calendar.MAY, 3), epochDay(Calendar.MAY, 6), null);
+        int today = CalendarUtils.getTodayEpochDay();
+
+        SelectionBatch batch = adapter.beginSelection();
+        batch.setRange(DatePickAdapter.newCalendarDay(today - 1), DatePickAdapter.newCalendarDay(today + 1));
+        assertFalse(batch.commit());
+
+        assertEquals(0, mRangeCallbacks);
+        assertEquals(Arrays.asList(DatePickerController.FailEven.CONTAIN_INVALID), mFails);
+        assertTrue(mChangedRanges.isEmpty());
+        assertEquals(epochDay(Calendar.MAY, 3), mDataModel.selectedDays.getFirst().getEpochDay());
+        assertEquals(epochDay(Calendar.MAY, 6), mDataModel.selectedDays.getLast().getEpochDay());
+    }
+
+    @Test
+    public void commitMultiple_callsBackOnceAndRefreshesChangedMonths() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        intervals.add(epochDay(Calendar.MAY, 3), epochDay(Calendar.MAY, 3));
+        intervals.add(epochDay(Calendar.AUGUST, 20), epochDay(Calendar.AUGUST, 20));
+        DatePickAdapter adapter = newAdapter(SelectionEngine.MODE_MULTIPLE_DATES, CalendarUtils.NO_DAY, CalendarUtils.NO_DAY, intervals);
+
+        SelectionBatch batch = adapter.beginSelection();
+        batch.addDay(DatePickAdapter.newCalendarDay(epochDay(Calendar.JUNE, 5)));
+        batch.addDay(DatePickAdapter.newCalendarDay(epochDay(Calendar.JUNE, 9)));
+        batch.removeDay(DatePickAdapter.newCalendarDay(epochDay(Calendar.AUGUST, 20)));
+        assertTrue(batch.commit());
+
+        // 5月的选择没有变化，不刷新
+        assertEquals(1, mIntervalsCallbacks);
+        assertTrue(mFails.isEmpty());
+        assertEquals(Arrays.asList("1+1", "3+1"), mChangedRanges);
+        assertEquals(3, mDataModel.selectedIntervals.size());
+    }
+
+    @Test
+    public void commitMultiple_keepsButCannotAddDaysBeforeToday() throws Exception {
+        int today = CalendarUtils.getTodayEpochDay();
+        DayIntervals intervals = new DayIntervals();
+        intervals.add(today - 10, today - 10);
+        DatePickAdapter adapter = newAdapter(SelectionEngine.MODE_MULTIPLE_DATES, CalendarUtils.NO_DAY, CalendarUtils.NO_DAY, intervals);
+
+        // 原来选中的过去日期可以保留
+        SelectionBatch batch = adapter.beginSelection();
+        batch.addDay(DatePickAdapter.newCalendarDay(epochDay(Calendar.JUNE, 5)));
+        assertTrue(batch.commit());
+        assertEquals(1, mIntervalsCallbacks);
+
+        // 点击不能选中过去的日期，批量修改也不能
+        batch = adapter.beginSelection();
+        batch.addDay(DatePickAdapter.newCalendarDay(today - 3));
+        assertFalse(batch.commit());
+        assertEquals(1, mIntervalsCallbacks);
+        assertEquals(Arrays.asList(DatePickerController.FailEven.CONTAIN_INVALID), mFails);
+        assertFalse(mDataModel.selectedIntervals.contains(today - 3));
+    }
+
+    private DatePickAdapter newAdapter(int selectionMode, int first, int last, DayIntervals intervals) {
+        DatePikerView.DataModel dataModel = mDataModel = new DatePikerView.DataModel();
+        dataModel.yearStart = 2030;
+        dataModel.monthStart = Calendar.MAY;
+        dataModel.monthCount = 6;
+        dataModel.selectionMode = selectionMode;
+        dataModel.selectedIntervals = intervals;
+        dataModel.selectedDays = new DatePickAdapter.SelectedDays<>(DatePickAdapter.newCalendarDay(first),
+                DatePickAdapter.newCalendarDay(last));
+        DatePickAdapter adapter = new DatePickAdapter(InstrumentationRegistry.getTargetContext(), mTheme, mController, dataModel);
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                assertSame(DatePickAdapter.PAYLOAD_SELECTION, payload);
+                mChangedRanges.add(positionStart + "+" + itemCount);
+            }
+        });
+        return adapter;
+    }
+
+    private static int epochDay(int month, int dayOfMonth) {
+        return CalendarUtils.toEpochDay(2030, month, dayOfMonth);
+    }
+}
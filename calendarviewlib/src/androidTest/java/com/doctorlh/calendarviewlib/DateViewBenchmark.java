@@ -0,0 +1,161 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DateView.setMonthParams + onDraw的基准测试，绘制到只记录调用次数的RecordingCanvas
+ * 场景包括4~6行的月份、不同的选择状态和字号，每个场景输出ns/op和allocs/op
+ * 分配次数和绘制调用次数与assets中的基线比较，超出基线时失败；耗时和设备有关，只输出不比较
+ * 修改绘制逻辑后按日志中的"baseline:"行更新基线
+ */
+@RunWith(AndroidJUnit4.class)
+public class DateViewBenchmark {
+    private static final String TAG = "DateViewBenchmark";
+    private static final String BASELINE_ASSET = "dateview_benchmark_baseline.properties";
+    private static final int WIDTH = 720;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    // 一周从星期日开始时，2015年2月占4行，2017年5月占5行，2015年8月占6行
+    private static final int[][] MONTHS = {{2015, Calendar.FEBRUARY, 4}, {2017, Calendar.MAY, 5}, {2015, Calendar.AUGUST, 6}};
+    private static final String[] SELECTIONS = {"none", "start", "crossMonthRange", "singleDay"};
+    private static final float[] TEXT_SCALES = {1f, 1.5f};
+
+    @Test
+    public void onDraw_withinBaseline() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        Properties baseline = new Properties();
+        InputStream in = InstrumentationRegistry.getContext().getAssets().open(BASELINE_ASSET);
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+
+        List<String> failures = new ArrayList<>();
+        TypedArray typedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        for (float textScale : TEXT_SCALES) {
+            DateViewTheme theme = new DateViewTheme(typedArray, textScale);
+            for (int[] month : MONTHS) {
+                for (String selection : SELECTIONS) {
+                    String name = String.format(Locale.US, "rows%d.%s.text%d", month[2], selection, Math.round(textScale * 100));
+                    Result result = run(context, theme, newParams(month[0], month[1], selection));
+                    Log.i(TAG, String.format(Locale.US, "%s: %d ns/op, %.2f allocs/op, %d draw calls/op",
+                            name, result.nanosPerOp, result.allocsPerOp, result.drawCalls));
+                    Log.i(TAG, "baseline: " + name + ".allocs=" + (int) Math.ceil(result.allocsPerOp));
+                    Log.i(TAG, "baseline: " + name + ".drawCalls=" + result.drawCalls);
+                    check(baseline, name, result, failures);
+                }
+            }
+        }
+        typedArray.recycle();
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    /**
+     * 4~6行的月份都要覆盖到
+     */
+    @Test
+    public void months_haveExpectedRows() throws Exception {
+        for (int[] month : MONTHS) {
+            assertEquals(month[2], CalendarUtils.getMonthLayout(month[0], month[1], Calendar.SUNDAY).numRows);
+        }
+    }
+
+    private static DateView.MonthParams newParams(int year, int month, String selection) {
+        DateView.MonthParams params = new DateView.MonthParams();
+        params.year = year;
+        params.month = month;
+        params.weekStart = Calendar.SUNDAY;
+        if ("start".equals(selection)) {
+            params.selectedBegin = new DatePickAdapter.CalendarDay(year, month, 10);
+        } else if ("crossMonthRange".equals(selection)) {
+            // 从上个月20号到本月15号
+            params.selectedBegin = month == 0 ? new DatePickAdapter.CalendarDay(year - 1, 11, 20)
+                    : new DatePickAdapter.CalendarDay(year, month - 1, 20);
+            params.selectedLast = new DatePickAdapter.CalendarDay(year, month, 15);
+        } else if ("singleDay".equals(selection)) {
+            params.selectedBegin = new DatePickAdapter.CalendarDay(year, month, 10);
+            params.selectedLast = new DatePickAdapter.CalendarDay(year, month, 10);
+        }
+        return params;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Result run(Context context, DateViewTheme theme, DateView.MonthParams params) {
+        DateView dateView = new DateView(context, theme);
+        dateView.setMonthParams(params);
+        dateView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        dateView.layout(0, 0, dateView.getMeasuredWidth(), dateView.getMeasuredHeight());
+        RecordingCanvas canvas = new RecordingCanvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ALPHA_8));
+
+        for (int i = 0; i < WARMUP; i++) {
+            dateView.setMonthParams(params);
+            dateView.onDraw(canvas);
+        }
+
+        Result result = new Result();
+        canvas.reset();
+        dateView.onDraw(canvas);
+        result.drawCalls = canvas.getDrawCount();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            dateView.setMonthParams(params);
+            dateView.onDraw(canvas);
+        }
+        result.nanosPerOp = (System.nanoTime() - start) / ITERATIONS;
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ITERATIONS; i++) {
+            dateView.setMonthParams(params);
+            dateView.onDraw(canvas);
+        }
+        Debug.stopAllocCounting();
+        result.allocsPerOp = Debug.getThreadAllocCount() / (double) ITERATIONS;
+        return result;
+    }
+
+    private static void check(Properties baseline, String name, Result result, List<String> failures) {
+        String allocs = baseline.getProperty(name + ".allocs");
+        String drawCalls = baseline.getProperty(name + ".drawCalls");
+        if (allocs == null || drawCalls == null) {
+            failures.add(name + ": 缺少基线");
+            return;
+        }
+        if (result.allocsPerOp > Integer.parseInt(allocs)) {
+            failures.add(name + ": 每次分配" + result.allocsPerOp + "个对象，基线是" + allocs);
+        }
+        if (result.drawCalls != Integer.parseInt(drawCalls)) {
+            failures.add(name + ": 绘制调用" + result.drawCalls + "次，基线是" + drawCalls);
+        }
+    }
+
+    private static class Result {
+        long nanosPerOp;
+        double allocsPerOp;
+        int drawCalls;
+    }
+}
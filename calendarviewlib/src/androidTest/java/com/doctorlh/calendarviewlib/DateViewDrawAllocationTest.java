@@ -0,0 +1,54 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 检查DateView.onDraw在绑定之后不再分配对象
+ */
+@RunWith(AndroidJUnit4.class)
+public class DateViewDrawAllocationTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void onDraw_allocatesNothing() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        TypedArray typedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        final DateView dateView = new DateView(context, new DateViewTheme(typedArray));
+
+        DateView.MonthParams params = new DateView.MonthParams();
+        params.year = 2017;
+        params.month = 4;
+        params.selectedBegin = new DatePickAdapter.CalendarDay(2017, 4, 3);
+        params.selectedLast = new DatePickAdapter.CalendarDay(2017, 4, 20);
+        dateView.setMonthParams(params);
+        dateView.measure(View.MeasureSpec.makeMeasureSpec(720, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        dateView.layout(0, 0, dateView.getMeasuredWidth(), dateView.getMeasuredHeight());
+
+        Canvas canvas = new Canvas(Bitmap.createBitmap(dateView.getMeasuredWidth(), dateView.getMeasuredHeight(), Bitmap.Config.ARGB_8888));
+        // 预热
+        dateView.onDraw(canvas);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < 10; i++) {
+            dateView.onDraw(canvas);
+        }
+        Debug.stopAllocCounting();
+
+        assertEquals(0, Debug.getThreadAllocCount());
+        typedArray.recycle();
+    }
+}
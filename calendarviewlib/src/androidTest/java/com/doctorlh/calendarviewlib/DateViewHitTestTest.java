@@ -0,0 +1,86 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 检查DateView的坐标换算日期，以及拖动选择时的更新不分配对象
+ */
+@RunWith(AndroidJUnit4.class)
+public class DateViewHitTestTest {
+    private static final int WIDTH = 700;
+
+    private TypedArray mTypedArray;
+    private DateViewTheme mTheme;
+    private DateView mDateView;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mTypedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        mTheme = new DateViewTheme(mTypedArray);
+        mDateView = new DateView(context, mTheme);
+
+        // 2017年5月1日是星期一，一周从星期日开始时在第一行第二列
+        DateView.MonthParams params = new DateView.MonthParams();
+        params.year = 2017;
+        params.month = Calendar.MAY;
+        params.weekStart = Calendar.SUNDAY;
+        mDateView.setMonthParams(params);
+        mDateView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        mDateView.layout(0, 0, mDateView.getMeasuredWidth(), mDateView.getMeasuredHeight());
+    }
+
+    @After
+    public void tearDown() {
+        mTypedArray.recycle();
+    }
+
+    @Test
+    public void getEpochDayFromLocation_mapsCells() throws Exception {
+        int may1 = new DatePickAdapter.CalendarDay(2017, Calendar.MAY, 1).getEpochDay();
+        int cell = WIDTH / 7;
+        float firstRowY = mTheme.monthHeaderSize + mTheme.rowHeight / 2f;
+
+        assertEquals(may1, mDateView.getEpochDayFromLocation(cell * 1.5f, firstRowY));
+        assertEquals(may1 + 8, mDateView.getEpochDayFromLocation(cell * 2.5f, firstRowY + mTheme.rowHeight));
+        // 头部、第一天之前的空白和右边界之外都不是日期
+        assertEquals(CalendarUtils.NO_DAY, mDateView.getEpochDayFromLocation(cell * 1.5f, mTheme.monthHeaderSize / 2f));
+        assertEquals(CalendarUtils.NO_DAY, mDateView.getEpochDayFromLocation(cell * 0.5f, firstRowY));
+        assertEquals(CalendarUtils.NO_DAY, mDateView.getEpochDayFromLocation(WIDTH, firstRowY));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void dragUpdate_allocatesNothing() throws Exception {
+        int may1 = new DatePickAdapter.CalendarDay(2017, Calendar.MAY, 1).getEpochDay();
+        int cell = WIDTH / 7;
+        float y = mTheme.monthHeaderSize + mTheme.rowHeight * 2.5f;
+        // 预热
+        mDateView.setSelectedEpochDays(may1, may1 + 3);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < 7; i++) {
+            int epochDay = mDateView.getEpochDayFromLocation(cell * (i + 0.5f), y);
+            mDateView.setSelectedEpochDays(may1, epochDay);
+        }
+        Debug.stopAllocCounting();
+
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 比较原来每次绑定新建HashMap传参数和现在复用MonthParams时，每次绑定分配的对象数和耗时
+ * 模拟滚动时依次绑定24个月，HashMap的方式除了HashMap本身还要装箱年份
+ */
+@RunWith(AndroidJUnit4.class)
+public class MonthParamsBindBenchmark {
+    private static final String TAG = "MonthParamsBind";
+    private static final int MONTH_COUNT = 24;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 480;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void bind_monthParamsAllocatesNothing() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        TypedArray typedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        DateView dateView = new DateView(context, new DateViewTheme(typedArray));
+        typedArray.recycle();
+        DatePickAdapter.CalendarDay begin = new DatePickAdapter.CalendarDay(2017, 4, 3);
+        DatePickAdapter.CalendarDay last = new DatePickAdapter.CalendarDay(2017, 4, 20);
+        DateView.MonthParams params = new DateView.MonthParams();
+        params.selectedBegin = begin;
+        params.selectedLast = last;
+
+        for (int i = 0; i < WARMUP; i++) {
+            bindMap(dateView, i, begin, last);
+            bindParams(dateView, i, params);
+        }
+
+        long start = System.nanoTime();
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bindMap(dateView, i, begin, last);
+        }
+        Debug.stopAllocCounting();
+        long mapNanos = (System.nanoTime() - start) / ITERATIONS;
+        double mapAllocs = Debug.getThreadAllocCount() / (double) ITERATIONS;
+
+        start = System.nanoTime();
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bindParams(dateView, i, params);
+        }
+        Debug.stopAllocCounting();
+        long paramsNanos = (System.nanoTime() - start) / ITERATIONS;
+        double paramsAllocs = Debug.getThreadAllocCount() / (double) ITERATIONS;
+
+        Log.i(TAG, String.format(Locale.US, "HashMap: %d ns/bind, %.2f allocs/bind", mapNanos, mapAllocs));
+        Log.i(TAG, String.format(Locale.US, "MonthParams: %d ns/bind, %.2f allocs/bind", paramsNanos, paramsAllocs));
+        assertEquals(0, paramsAllocs, 0);
+        assertTrue(mapAllocs > paramsAllocs);
+    }
+
+    /**
+     * 原来DatePickAdapter.onBindViewHolder的传参方式
+     */
+    @SuppressWarnings("deprecation")
+    private static void bindMap(DateView dateView, int index, DatePickAdapter.CalendarDay begin, DatePickAdapter.CalendarDay last) {
+        HashMap<String, Object> drawingParams = new HashMap<String, Object>();
+        drawingParams.put(DateView.VIEW_PARAMS_SELECTED_BEGIN_DATE, begin);
+        drawingParams.put(DateView.VIEW_PARAMS_SELECTED_LAST_DATE, last);
+        drawingParams.put(DateView.VIEW_PARAMS_YEAR, 2017 + index % MONTH_COUNT / 12);
+        drawingParams.put(DateView.VIEW_PARAMS_MONTH, index % 12);
+        drawingParams.put(DateView.VIEW_PARAMS_WEEK_START, 1);
+        dateView.setMonthParams(drawingParams);
+    }
+
+    private static void bindParams(DateView dateView, int index, DateView.MonthParams params) {
+        params.year = 2017 + index % MONTH_COUNT / 12;
+        params.month = index % 12;
+        params.weekStart = 1;
+        dateView.setMonthParams(params);
+    }
+}
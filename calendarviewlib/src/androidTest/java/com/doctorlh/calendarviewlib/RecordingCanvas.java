@@ -0,0 +1,98 @@
+package com.doctorlh.calendarviewlib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * 不绘制任何内容，只记录DateView用到的绘制调用次数
+ * 基准测试只测量DateView自身的开销，不受栅格化速度影响
+ */
+class RecordingCanvas extends Canvas {
+    private int mTextCount;
+    private int mRectCount;
+    private int mBitmapCount;
+
+    RecordingCanvas(Bitmap bitmap) {
+        super(bitmap);
+    }
+
+    void reset() {
+        mTextCount = 0;
+        mRectCount = 0;
+        mBitmapCount = 0;
+    }
+
+    int getTextCount() {
+        return mTextCount;
+    }
+
+    int getRectCount() {
+        return mRectCount;
+    }
+
+    int getBitmapCount() {
+        return mBitmapCount;
+    }
+
+    int getDrawCount() {
+        return mTextCount + mRectCount + mBitmapCount;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        mTextCount++;
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        mTextCount++;
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        mTextCount++;
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        mTextCount++;
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        mRectCount++;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        mRectCount++;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        mRectCount++;
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        mRectCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mBitmapCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mBitmapCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        mBitmapCount++;
+    }
+}
@@ -0,0 +1,140 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 比较直接绘制文字和使用文字图集时，模拟快速滑过24个月的每帧耗时
+ * 每一帧绘制可见的3个月，窗口每帧向后移动一个月
+ * 使用图集时日期和标签都不再调用drawText，每帧不分配对象，不满足时失败；耗时和设备有关，和DateViewBenchmark一样只输出不比较
+ */
+@RunWith(AndroidJUnit4.class)
+public class TextAtlasBenchmarkTest {
+    private static final String TAG = "TextAtlasBenchmark";
+    private static final int MONTH_COUNT = 24;
+    private static final int VISIBLE_MONTHS = 3;
+    private static final int ROUNDS = 20;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void fling24Months_frameTime() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        TypedArray typedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        DateViewTheme theme = new DateViewTheme(typedArray);
+        typedArray.recycle();
+
+        DateView[] views = newMonthViews(context, theme);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(720, views[0].getMeasuredHeight() * 2, Bitmap.Config.ARGB_8888));
+
+        long textNanos = measureFrames(views, canvas, null);
+        double textAllocs = countAllocsPerFrame(views, canvas);
+        long atlasNanos = measureFrames(views, canvas, new TextAtlas(theme));
+        double atlasAllocs = countAllocsPerFrame(views, canvas);
+        Log.i(TAG, String.format(Locale.US, "drawText: %d ns/frame, %.2f allocs/frame; atlas: %d ns/frame, %.2f allocs/frame",
+                textNanos, textAllocs, atlasNanos, atlasAllocs));
+        assertEquals(0, atlasAllocs, 0);
+    }
+
+    /**
+     * 使用图集时每个月只有头部的年份月份还是drawText，日期和标签都从图集绘制
+     */
+    @Test
+    public void atlas_replacesDayAndTagText() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        TypedArray typedArray = context.obtainStyledAttributes(null, R.styleable.DatePikerView);
+        DateViewTheme theme = new DateViewTheme(typedArray);
+        typedArray.recycle();
+        DateView[] views = newMonthViews(context, theme);
+        RecordingCanvas canvas = new RecordingCanvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ALPHA_8));
+
+        // 4月到6月，5月有开始和结束的标签
+        drawMonths(views, canvas, Calendar.APRIL);
+        int textCount = canvas.getTextCount();
+        int textDrawCount = canvas.getDrawCount();
+
+        TextAtlas textAtlas = new TextAtlas(theme);
+        for (DateView view : views) {
+            view.setTextAtlas(textAtlas);
+        }
+        canvas.reset();
+        drawMonths(views, canvas, Calendar.APRIL);
+        assertEquals(VISIBLE_MONTHS, canvas.getTextCount());
+        assertTrue(textCount > VISIBLE_MONTHS);
+        // 每段文字换成一次图集绘制，总的绘制次数不变
+        assertEquals(textDrawCount, canvas.getDrawCount());
+    }
+
+    /**
+     * 2017年1月开始的24个月，都选中2017年5月3日到20日
+     */
+    private static DateView[] newMonthViews(Context context, DateViewTheme theme) {
+        DateView[] views = new DateView[MONTH_COUNT];
+        for (int i = 0; i < MONTH_COUNT; i++) {
+            DateView.MonthParams params = new DateView.MonthParams();
+            params.year = 2017 + i / 12;
+            params.month = i % 12;
+            params.selectedBegin = new DatePickAdapter.CalendarDay(2017, 4, 3);
+            params.selectedLast = new DatePickAdapter.CalendarDay(2017, 4, 20);
+            views[i] = new DateView(context, theme);
+            views[i].setMonthParams(params);
+            views[i].measure(View.MeasureSpec.makeMeasureSpec(720, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            views[i].layout(0, 0, views[i].getMeasuredWidth(), views[i].getMeasuredHeight());
+        }
+        return views;
+    }
+
+    private static long measureFrames(DateView[] views, Canvas canvas, TextAtlas textAtlas) {
+        for (DateView view : views) {
+            view.setTextAtlas(textAtlas);
+        }
+        int frames = MONTH_COUNT - VISIBLE_MONTHS + 1;
+        // 预热
+        drawFrames(views, canvas, frames);
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            drawFrames(views, canvas, frames);
+        }
+        return (System.nanoTime() - start) / (ROUNDS * frames);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static double countAllocsPerFrame(DateView[] views, Canvas canvas) {
+        int frames = MONTH_COUNT - VISIBLE_MONTHS + 1;
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        drawFrames(views, canvas, frames);
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount() / (double) frames;
+    }
+
+    private static void drawMonths(DateView[] views, Canvas canvas, int first) {
+        for (int i = first; i < first + VISIBLE_MONTHS; i++) {
+            views[i].onDraw(canvas);
+        }
+    }
+
+    private static void drawFrames(DateView[] views, Canvas canvas, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            for (int i = frame; i < frame + VISIBLE_MONTHS; i++) {
+                views[i].onDraw(canvas);
+            }
+        }
+    }
+}
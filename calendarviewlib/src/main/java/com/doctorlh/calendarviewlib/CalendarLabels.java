@@ -0,0 +1,89 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+
+/**
+ * 头部文字的缓存：年份月份标题和月份简称，按语言缓存
+ * 语言变化后旧的缓存自动失效；缓存项创建后不再修改
+ */
+final class CalendarLabels {
+    private static final int TITLE_CACHE_SIZE = 64;                             // 必须是2的幂
+
+    private static volatile CalendarLabels sInstance;
+
+    private final Locale mLocale;
+    private final String[] mShortMonths;                                        // 月份简称，0~11
+    private final MonthTitle[] mTitles = new MonthTitle[TITLE_CACHE_SIZE];
+
+    private CalendarLabels(Locale locale) {
+        mLocale = locale;
+        mShortMonths = new DateFormatSymbols(locale).getShortMonths();
+    }
+
+    /**
+     * 当前语言的缓存，语言变化后重新创建
+     *
+     * @return
+     */
+    static CalendarLabels get() {
+        Locale locale = Locale.getDefault();
+        CalendarLabels labels = sInstance;
+        if (labels == null || (labels.mLocale != locale && !labels.mLocale.equals(locale))) {
+            labels = new CalendarLabels(locale);
+            sInstance = labels;
+        }
+        return labels;
+    }
+
+    /**
+     * 月份简称
+     *
+     * @param month 0~11
+     * @return
+     */
+    String getShortMonth(int month) {
+        return mShortMonths[month];
+    }
+
+    /**
+     * 头部的年份月份文字，首字母大写，按月份序号缓存在一个固定大小的表里
+     *
+     * @param context
+     * @param year
+     * @param month   0~11
+     * @return
+     */
+    String getMonthTitle(Context context, int year, int month) {
+        int monthIndex = year * 12 + month;
+        int slot = monthIndex & (TITLE_CACHE_SIZE - 1);
+        MonthTitle title = mTitles[slot];
+        if (title == null || title.monthIndex != monthIndex) {
+            title = new MonthTitle(monthIndex, formatMonthTitle(context, year, month));
+            mTitles[slot] = title;
+        }
+        return title.text;
+    }
+
+    private String formatMonthTitle(Context context, int year, int month) {
+        // 按UTC格式化，直接用天数换算毫秒，不需要Calendar
+        int flags = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_NO_MONTH_DAY | DateUtils.FORMAT_UTC;
+        long millis = CalendarUtils.toEpochDay(year, month, 1) * DateUtils.DAY_IN_MILLIS;
+        StringBuilder builder = new StringBuilder(DateUtils.formatDateRange(context, millis, millis, flags).toLowerCase(mLocale));
+        builder.setCharAt(0, Character.toUpperCase(builder.charAt(0)));
+        return builder.toString();
+    }
+
+    private static final class MonthTitle {
+        final int monthIndex;
+        final String text;
+
+        MonthTitle(int monthIndex, String text) {
+            this.monthIndex = monthIndex;
+            this.text = text;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.doctorlh.calendarviewlib;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
@@ -12,14 +14,16 @@ import android.widget.AbsListView;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 
 /**
  * Created by 14074533 on 2017/4/27.
  */
-public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHolder> implements DateView.OnDayClickListener {
+public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHolder> implements DateView.OnDayClickListener, DateView.OnDayDragListener {
     protected static final int MONTHS_IN_YEAR = 12;
-    private final TypedArray typedArray;
+    protected static final int VIRTUAL_MONTH_COUNT = MONTHS_IN_YEAR * 400;    // 无限滚动时的虚拟月份数，前后各200年
+    static final Object PAYLOAD_SELECTION = new Object();                // 只有选择的日期变化，不需要重新绑定整个月
+    private final DateViewTheme mTheme;                         // 所有DateView共用的主题
     private final Context mContext;
     private final DatePickerController mController;             // 回调
     private Calendar calendar;
@@ -27,10 +31,32 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
     private int mLeastDaysNum;                                  // 至少选择几天
     private int mMostDaysNum;                                   // 至多选择几天
     private DatePikerView.DataModel dataModel;
+    private int mFirstMonthIndex;                               // 位置0对应的月份序号（年份 * 12 + 月份）
+    private MonthRenderCache mRenderCache;                      // 月份位图缓存
+    private TextAtlas mTextAtlas;                               // 日期文字图集，DataModel.textAtlas为true时使用
+    private PickerMetrics mMetrics;                             // 性能统计，为null时不统计
+    private long mTapStartNanos;                                // 点击日期的时间，用于统计点击到回调的延迟
+    private int mRenderVersion;                                 // 影响绘制结果的数据版本
+    private DayDecorationProvider mDecorationProvider;          // 每一天的附加数据
+    private BlockedDays mBlockedDays;                           // 不可选的日期
+    private final SelectionEngine mSelectionEngine = new SelectionEngine();   // 选择日期的规则
+    private OnSelectionInvalidateListener mOnSelectionInvalidateListener;
+    private int[] mChangedRanges = new int[8];                  // 选择变化涉及的日期范围，每两个数为一组[开始, 结束]
+    private int mChangedRangeCount;
+    private RecyclerView mRecyclerView;                         // 拖动选择时查找手指下的月份
+    private boolean mDragging;                                  // 是否正在拖动选择
+    private int mDragAnchor;                                    // 长按的日期
+    private int mDragCurrent;                                   // 手指当前所在的日期
+    private int mDragFirst;                                     // 拖动中显示的开始日期
+    private int mDragLast;                                      // 拖动中显示的结束日期，和开始日期相同时为NO_DAY
 
     public DatePickAdapter(Context context, TypedArray typedArray, DatePickerController datePickerController, DatePikerView.DataModel dataModel) {
+        this(context, new DateViewTheme(typedArray), datePickerController, dataModel);
+    }
+
+    DatePickAdapter(Context context, DateViewTheme theme, DatePickerController datePickerController, DatePikerView.DataModel dataModel) {
         mContext = context;
-        this.typedArray = typedArray;
+        mTheme = theme;
         mController = datePickerController;
         this.dataModel = dataModel;
         initData();
@@ -70,50 +96,175 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
             dataModel.monthCount = 12;
         }
 
+        if (dataModel.prefetchDepth <= 0) {
+            dataModel.prefetchDepth = 2;
+        }
+
         mLeastDaysNum = dataModel.leastDaysNum;
         mMostDaysNum = dataModel.mostDaysNum;
         rangeDays = dataModel.selectedDays;
+        mSelectionEngine.setDaysLimit(mLeastDaysNum, mMostDaysNum);
+        mSelectionEngine.setMode(dataModel.selectionMode);
+        if (isMultipleSelection() && dataModel.selectedIntervals == null) {
+            dataModel.selectedIntervals = new DayIntervals();
+        }
+        mSelectionEngine.setIntervals(dataModel.selectedIntervals);
+
+        int startMonthIndex = dataModel.yearStart * MONTHS_IN_YEAR + dataModel.monthStart;
+        mFirstMonthIndex = dataModel.infinite ? startMonthIndex - VIRTUAL_MONTH_COUNT / 2 : startMonthIndex;
+
+        if (dataModel.textAtlas != (mTextAtlas != null)) {
+            // 图集和直接绘制的结果有细微差别，缓存的位图需要失效
+            mTextAtlas = dataModel.textAtlas ? new TextAtlas(mTheme) : null;
+            mRenderVersion++;
+        }
+    }
+
+    DateViewTheme getTheme() {
+        return mTheme;
     }
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup viewGroup, int i) {
-        final DateView simpleMonthView = new DateView(mContext, typedArray, dataModel);
+        final DateView simpleMonthView = new DateView(mContext, mTheme);
+        if (mMetrics != null) {
+            mMetrics.onViewHolderCreated();
+        }
+        simpleMonthView.setOnDayDragListener(this);
         return new ViewHolder(simpleMonthView, this);
     }
 
     @Override
-    public void onBindViewHolder(ViewHolder viewHolder, int position) {
-        final DateView v = viewHolder.simpleMonthView;
-        final HashMap<String, Object> drawingParams = new HashMap<String, Object>();
-        int month;          // 月份
-        int year;           // 年份
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+    }
 
-        int monthStart = dataModel.monthStart;
-        int yearStart = dataModel.yearStart;
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        mRecyclerView = null;
+    }
 
-        month = (monthStart + (position % MONTHS_IN_YEAR)) % MONTHS_IN_YEAR;
-        year = position / MONTHS_IN_YEAR + yearStart + ((monthStart + (position % MONTHS_IN_YEAR)) / MONTHS_IN_YEAR);
+    @Override
+    public void onBindViewHolder(ViewHolder viewHolder, int position) {
+        final DateView v = viewHolder.simpleMonthView;
+        final DateView.MonthParams drawingParams = viewHolder.monthParams;
+        int monthIndex = getMonthIndex(position);
+        int month = monthIndex % MONTHS_IN_YEAR;            // 月份
+        int year = monthIndex / MONTHS_IN_YEAR;             // 年份
 
-        drawingParams.put(DateView.VIEW_PARAMS_SELECTED_BEGIN_DATE, rangeDays.getFirst());
-        drawingParams.put(DateView.VIEW_PARAMS_SELECTED_LAST_DATE, rangeDays.getLast());
-        drawingParams.put(DateView.VIEW_PARAMS_YEAR, year);
-        drawingParams.put(DateView.VIEW_PARAMS_MONTH, month);
-        drawingParams.put(DateView.VIEW_PARAMS_WEEK_START, calendar.getFirstDayOfWeek());
+        drawingParams.selectedBegin = rangeDays.getFirst();
+        drawingParams.selectedLast = rangeDays.getLast();
+        drawingParams.selectedIntervals = isMultipleSelection() ? dataModel.selectedIntervals : null;
+        drawingParams.year = year;
+        drawingParams.month = month;
+        drawingParams.weekStart = getWeekStart();
+        drawingParams.renderVersion = mRenderVersion;
+        v.setRenderCache(mRenderCache);
+        v.setTextAtlas(mTextAtlas);
+        v.setMetrics(mMetrics);
+        v.setDayDecorationProvider(mDecorationProvider);
+        v.setBlockedDays(mBlockedDays);
+        // 先设置绘制的范围，setMonthParams时按整个月还是一行决定是否生成缓存的位图
+        v.setWindowRow(getWindowRow(position));
         v.setMonthParams(drawingParams);
+        if (mDragging) {
+            v.setSelectedEpochDays(mDragFirst, mDragLast);
+        }
         v.invalidate();
     }
 
+    @Override
+    public void onBindViewHolder(ViewHolder viewHolder, int position, List<Object> payloads) {
+        PickerMetrics metrics = mMetrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        bindViewHolder(viewHolder, position, payloads);
+        if (metrics != null) {
+            metrics.getBind().record(System.nanoTime() - start);
+        }
+    }
+
+    private void bindViewHolder(ViewHolder viewHolder, int position, List<Object> payloads) {
+        if (payloads.isEmpty() || payloads.contains(null)) {
+            onBindViewHolder(viewHolder, position);
+            return;
+        }
+        for (int i = 0; i < payloads.size(); i++) {
+            if (payloads.get(i) != PAYLOAD_SELECTION) {
+                onBindViewHolder(viewHolder, position);
+                return;
+            }
+        }
+        // 只更新选择的日期，由DateView自己决定重绘哪些行
+        viewHolder.simpleMonthView.setSelectedDays(rangeDays.getFirst(), rangeDays.getLast(),
+                isMultipleSelection() ? dataModel.selectedIntervals : null);
+        if (mDragging) {
+            viewHolder.simpleMonthView.setSelectedEpochDays(mDragFirst, mDragLast);
+        }
+    }
+
     public long getItemId(int position) {
         return position;
     }
 
     @Override
     public int getItemCount() {
-        return dataModel.monthCount;
+        return getMonthCount();
+    }
+
+    /**
+     * 一共有几个月
+     *
+     * @return
+     */
+    protected int getMonthCount() {
+        return dataModel.infinite ? VIRTUAL_MONTH_COUNT : dataModel.monthCount;
+    }
+
+    /**
+     * 位置对应的DateView绘制月份的哪一部分
+     *
+     * @param position
+     * @return 默认绘制整个月{@link DateView#ROW_ALL}
+     */
+    protected int getWindowRow(int position) {
+        return DateView.ROW_ALL;
+    }
+
+    /**
+     * 一周的第一天
+     *
+     * @return Calendar.SUNDAY ~ Calendar.SATURDAY
+     */
+    public int getWeekStart() {
+        return calendar.getFirstDayOfWeek();
+    }
+
+    /**
+     * 位置对应的月份序号（年份 * 12 + 月份）
+     *
+     * @param position
+     * @return
+     */
+    public int getMonthIndex(int position) {
+        return mFirstMonthIndex + position;
+    }
+
+    /**
+     * 月份在列表中的位置
+     *
+     * @param year
+     * @param month 0~11
+     * @return 可能超出列表范围
+     */
+    public int getPositionForMonth(int year, int month) {
+        return year * MONTHS_IN_YEAR + month - mFirstMonthIndex;
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
         final DateView simpleMonthView;
+        final DateView.MonthParams monthParams = new DateView.MonthParams();     // 绑定参数，每次绑定复用
 
         public ViewHolder(View itemView, DateView.OnDayClickListener onDayClickListener) {
             super(itemView);
@@ -126,69 +277,550 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
 
     @Override
     public void onDayClick(DateView simpleMonthView, CalendarDay calendarDay) {
-        if (calendarDay != null) {
+        if (calendarDay == null) {
+            return;
+        }
+        mTapStartNanos = mMetrics != null ? System.nanoTime() : 0;
+        if (isMultipleSelection()) {
+            setMultipleSelectedDay(calendarDay);
+        } else {
             setRangeSelectedDay(calendarDay);
         }
     }
 
+    @Override
+    public boolean onDayDragStart(DateView view, int epochDay) {
+        if (!dataModel.dragToSelect || isMultipleSelection() || mRecyclerView == null) {
+            return false;
+        }
+        // 不可选的日期不能作为拖动的起点，按普通点击处理
+        if (mBlockedDays != null && mBlockedDays.isBlocked(epochDay)) {
+            return false;
+        }
+        mDragging = true;
+        mDragAnchor = epochDay;
+        mDragCurrent = epochDay;
+        mDragFirst = epochDay;
+        mDragLast = CalendarUtils.NO_DAY;
+        applyDragSelection();
+        return true;
+    }
+
+    @Override
+    public void onDayDragMove(DateView view, float x, float y) {
+        if (!mDragging || mRecyclerView == null) {
+            return;
+        }
+        // 换算成列表中的坐标，手指可能已经移到了其他月份上
+        float listX = view.getLeft() + x;
+        float listY = view.getTop() + y;
+        View child = mRecyclerView.findChildViewUnder(listX, listY);
+        if (!(child instanceof DateView)) {
+            return;
+        }
+        DateView target = (DateView) child;
+        int epochDay = target.getEpochDayFromLocation(listX - child.getLeft(), listY - child.getTop());
+        if (epochDay == CalendarUtils.NO_DAY || epochDay == mDragCurrent || !target.isDayEnabled(epochDay)) {
+            return;
+        }
+        mDragCurrent = epochDay;
+        mDragFirst = Math.min(mDragAnchor, epochDay);
+        mDragLast = epochDay != mDragAnchor ? Math.max(mDragAnchor, epochDay) : CalendarUtils.NO_DAY;
+        applyDragSelection();
+    }
+
+    @Override
+    public void onDayDragEnd(DateView view, boolean canceled) {
+        if (!mDragging) {
+            return;
+        }
+        mDragging = false;
+        // 拖动中显示的状态没有保存到rangeDays，结束后都要按rangeDays刷新
+        markSelectionChanged(mDragFirst, mDragLast);
+        if (canceled) {
+            notifySelectionChanged(CalendarUtils.NO_DAY, CalendarUtils.NO_DAY);
+            return;
+        }
+        mTapStartNanos = mMetrics != null ? System.nanoTime() : 0;
+        if (mDragCurrent == mDragAnchor) {
+            // 没有移动到其他日期，和点击一样；选择失败时不会刷新，要恢复拖动中显示的状态
+            if (!selectRangeDay(newCalendarDay(mDragAnchor))) {
+                notifySelectionChanged(CalendarUtils.NO_DAY, CalendarUtils.NO_DAY);
+            }
+            return;
+        }
+
+        int result = mSelectionEngine.validateRange(mDragFirst, mDragLast);
+        if (result < 0) {
+            alertSelectedFail(result);
+            notifySelectionChanged(CalendarUtils.NO_DAY, CalendarUtils.NO_DAY);
+            return;
+        }
+        int oldFirst = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int oldLast = rangeDays.getLast() != null ? rangeDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        rangeDays.setFirst(newCalendarDay(mDragFirst));
+        rangeDays.setLast(newCalendarDay(mDragLast));
+        if (mController != null) {
+            recordTapToCallback();
+            mController.onDayOfMonthSelected(rangeDays.getFirst(), rangeDays.getLast());
+        }
+        notifySelectionChanged(oldFirst, oldLast);
+    }
+
+    /**
+     * 把拖动中的选择直接设置给屏幕上的月份，不经过notify，不创建对象
+     * 每个DateView只重绘状态变化的行
+     */
+    private void applyDragSelection() {
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            View child = mRecyclerView.getChildAt(i);
+            if (child instanceof DateView) {
+                ((DateView) child).setSelectedEpochDays(mDragFirst, mDragLast);
+            }
+        }
+    }
+
+    /**
+     * 是否是多选模式
+     *
+     * @return
+     */
+    public boolean isMultipleSelection() {
+        return dataModel.selectionMode != SelectionEngine.MODE_RANGE;
+    }
+
     /**
      * 范围选时对点击的日期的处理
      *
      * @param calendarDay
      */
     public void setRangeSelectedDay(CalendarDay calendarDay) {
-        // 选择结束日期
-        if (rangeDays.getFirst() != null && rangeDays.getLast() == null) {
-            // 所选结束日期在开始日期之前,重置开始日期
-            if (calendarDay.getDate().before(rangeDays.getFirst().getDate())) {
+        selectRangeDay(calendarDay);
+    }
+
+    /**
+     * @param calendarDay
+     * @return 是否选择成功，失败时只回调失败原因，不刷新
+     */
+    private boolean selectRangeDay(CalendarDay calendarDay) {
+        // 选择状态以rangeDays为准，外部可能直接修改过
+        int oldFirst = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int oldLast = rangeDays.getLast() != null ? rangeDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        mSelectionEngine.setSelection(oldFirst, oldLast);
+
+        int result = mSelectionEngine.select(calendarDay.getEpochDay());
+        switch (result) {
+            case SelectionEngine.RESULT_FIRST:
+            case SelectionEngine.RESULT_RESTART:
+                rangeDays.setFirst(calendarDay);
+                rangeDays.setLast(null);
+                break;
+            case SelectionEngine.RESULT_LAST:
+                rangeDays.setLast(calendarDay);
+                break;
+            default:
+                alertSelectedFail(result);
+                return false;
+        }
+
+        if (mController != null) {
+            recordTapToCallback();
+            mController.onDayOfMonthSelected(rangeDays.getFirst(), rangeDays.getLast());
+        }
+        notifySelectionChanged(oldFirst, oldLast);
+        return true;
+    }
+
+    /**
+     * 多选时对点击的日期的处理，rangeDays的开始日期保存还没有确定结束日期的一段
+     *
+     * @param calendarDay
+     */
+    public void setMultipleSelectedDay(CalendarDay calendarDay) {
+        int oldFirst = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        mSelectionEngine.setSelection(oldFirst, CalendarUtils.NO_DAY);
+
+        int epochDay = calendarDay.getEpochDay();
+        int result = mSelectionEngine.select(epochDay);
+        switch (result) {
+            case SelectionEngine.RESULT_FIRST:
                 rangeDays.setFirst(calendarDay);
                 rangeDays.setLast(null);
-                if (mController != null) {
-                    mController.onDayOfMonthSelected(rangeDays.getFirst(), rangeDays.getLast());
-                }
-                notifyDataSetChanged();
+                break;
+            case SelectionEngine.RESULT_ADDED:
+                rangeDays.setFirst(null);
+                rangeDays.setLast(null);
+                break;
+            case SelectionEngine.RESULT_REMOVED:
+                break;
+            default:
+                alertSelectedFail(result);
                 return;
+        }
+
+        // 合并或拆分后相邻日期的首尾样式也会变化，所以前后各多刷新一天
+        if (oldFirst != CalendarUtils.NO_DAY) {
+            markSelectionChanged(Math.min(oldFirst, epochDay) - 1, Math.max(oldFirst, epochDay) + 1);
+        } else {
+            markSelectionChanged(epochDay - 1, epochDay + 1);
+        }
+        if (rangeDays.getFirst() == null && mController instanceof MultiDatePickerController) {
+            recordTapToCallback();
+            ((MultiDatePickerController) mController).onDayIntervalsSelected(dataModel.selectedIntervals);
+        }
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * 记录从点击日期到回调的延迟，每次点击只记录一次
+     */
+    private void recordTapToCallback() {
+        if (mMetrics != null && mTapStartNanos != 0) {
+            mMetrics.getTapToCallback().record(System.nanoTime() - mTapStartNanos);
+        }
+        mTapStartNanos = 0;
+    }
+
+    /**
+     * 开始一次批量修改选择的日期
+     *
+     * @return
+     */
+    public SelectionBatch beginSelection() {
+        int first = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int last = rangeDays.getLast() != null ? rangeDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        return new SelectionBatch(this, isMultipleSelection(), first, last, dataModel.selectedIntervals);
+    }
+
+    /**
+     * 检查并应用批量修改，只回调一次，只刷新选择状态变化的月份
+     *
+     * @param batch
+     * @return 是否应用成功
+     */
+    boolean commitSelection(SelectionBatch batch) {
+        if (batch.isMultiple() != isMultipleSelection()) {
+            throw new IllegalStateException("提交前选择模式已经变化");
+        }
+        int oldFirst = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int oldLast = rangeDays.getLast() != null ? rangeDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        int result;
+        if (addsPrevDays(batch, oldFirst, oldLast)) {
+            result = SelectionEngine.FAIL_INVALID;
+        } else if (batch.isMultiple()) {
+            result = mSelectionEngine.validateIntervals(batch.getIntervals());
+        } else {
+            result = mSelectionEngine.validateRange(batch.getFirst(), batch.getLast());
+        }
+        if (result < 0) {
+            alertSelectedFail(result);
+            return false;
+        }
+
+        if (batch.isMultiple()) {
+            DayIntervals intervals = dataModel.selectedIntervals;
+            // 没有变化的区间不需要刷新
+            markIntervalsChanged(intervals, batch.getIntervals());
+            markIntervalsChanged(batch.getIntervals(), intervals);
+            intervals.set(batch.getIntervals());
+            // 还没有确定结束日期的一段被丢弃
+            markSelectionChanged(oldFirst, oldFirst);
+            rangeDays.setFirst(null);
+            rangeDays.setLast(null);
+            if (mController instanceof MultiDatePickerController) {
+                ((MultiDatePickerController) mController).onDayIntervalsSelected(intervals);
             }
+        } else {
+            rangeDays.setFirst(newCalendarDay(batch.getFirst()));
+            rangeDays.setLast(newCalendarDay(batch.getLast()));
+            markSelectionChanged(oldFirst, oldLast);
+            markSelectionChanged(batch.getFirst(), batch.getLast());
+            if (mController != null) {
+                mController.onDayOfMonthSelected(rangeDays.getFirst(), rangeDays.getLast());
+            }
+        }
+        dispatchSelectionChanged();
+        return true;
+    }
 
-            int dayDiff = dateDiff(rangeDays.getFirst(), calendarDay);
-            // 所选的日期范围不能小于最小限制
-            if (dayDiff > 1 && mLeastDaysNum > dayDiff) {
-                if (mController != null) {
-                    mController.alertSelectedFail(DatePickerController.FailEven.NO_REACH_LEAST_DAYS);
-                }
-                return;
+    /**
+     * 批量修改是否选中了今天以前的日期，和点击的规则一致：不能新选中今天以前的日期，原来已经选中的可以保留
+     *
+     * @param batch
+     * @param oldFirst 原来的开始日期
+     * @param oldLast  原来的结束日期
+     * @return
+     */
+    private boolean addsPrevDays(SelectionBatch batch, int oldFirst, int oldLast) {
+        if (mTheme.prevDayEnabled) {
+            return false;
+        }
+        int today = CalendarUtils.getTodayEpochDay();
+        if (!batch.isMultiple()) {
+            int first = batch.getFirst();
+            int last = batch.getLast();
+            return (first != CalendarUtils.NO_DAY && first < today && first != oldFirst)
+                    || (last != CalendarUtils.NO_DAY && last < today && last != oldLast);
+        }
+        DayIntervals intervals = batch.getIntervals();
+        DayIntervals selected = dataModel.selectedIntervals;
+        for (int i = 0; i < intervals.size() && intervals.getStart(i) < today; i++) {
+            int from = intervals.getStart(i);
+            int to = Math.min(intervals.getEnd(i), today - 1);
+            // 相邻的区间已经合并，今天以前的部分必须整段落在原来的一个区间里
+            int index = selected.indexOf(from);
+            if (index < 0 || selected.getEnd(index) < to) {
+                return true;
             }
-            // 所选日期范围不能大于最大限制
-            if (dayDiff > 1 && mMostDaysNum < dayDiff) {
-                if (mController != null) {
-                    mController.alertSelectedFail(DatePickerController.FailEven.NO_REACH_MOST_DAYS);
-                }
-                return;
+        }
+        return false;
+    }
+
+    /**
+     * 恢复保存的选择，不检查也不回调controller
+     *
+     * @param first     开始日期，NO_DAY表示没有
+     * @param last      结束日期，NO_DAY表示没有
+     * @param intervals 多选时选中的日期
+     */
+    void restoreSelection(int first, int last, DayIntervals intervals) {
+        rangeDays.setFirst(newCalendarDay(first));
+        rangeDays.setLast(first != CalendarUtils.NO_DAY ? newCalendarDay(last) : null);
+        if (isMultipleSelection() && intervals != null) {
+            dataModel.selectedIntervals.set(intervals);
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 记录intervals中在other里没有完全相同的区间，首尾样式会影响相邻的日期，所以前后各多记录一天
+     *
+     * @param intervals
+     * @param other
+     */
+    private void markIntervalsChanged(DayIntervals intervals, DayIntervals other) {
+        for (int i = 0; i < intervals.size(); i++) {
+            int start = intervals.getStart(i);
+            int end = intervals.getEnd(i);
+            int index = other.indexOf(start);
+            if (index < 0 || other.getStart(index) != start || other.getEnd(index) != end) {
+                markSelectionChanged(start - 1, end + 1);
             }
-            rangeDays.setLast(calendarDay);
-        } else if (rangeDays.getLast() != null) {   // 重新选择开始日期
-            rangeDays.setFirst(calendarDay);
-            rangeDays.setLast(null);
-        } else {        // 第一次选择开始日期
-            rangeDays.setFirst(calendarDay);
         }
+    }
 
-        if (mController != null) {
-            mController.onDayOfMonthSelected(rangeDays.getFirst(), rangeDays.getLast());
+    /**
+     * @param epochDay
+     * @return epochDay为NO_DAY时返回null
+     */
+    static CalendarDay newCalendarDay(int epochDay) {
+        if (epochDay == CalendarUtils.NO_DAY) {
+            return null;
+        }
+        CalendarDay calendarDay = new CalendarDay(1970, Calendar.JANUARY, 1);
+        calendarDay.setEpochDay(epochDay);
+        return calendarDay;
+    }
+
+    /**
+     * 把SelectionEngine的失败原因回调给controller
+     *
+     * @param result FAIL_开头的失败原因
+     */
+    private void alertSelectedFail(int result) {
+        if (mController == null) {
+            return;
+        }
+        switch (result) {
+            case SelectionEngine.FAIL_LEAST_DAYS:
+                mController.alertSelectedFail(DatePickerController.FailEven.NO_REACH_LEAST_DAYS);
+                break;
+            case SelectionEngine.FAIL_MOST_DAYS:
+                mController.alertSelectedFail(DatePickerController.FailEven.NO_REACH_MOST_DAYS);
+                break;
+            case SelectionEngine.FAIL_END_BEFORE_START:
+                mController.alertSelectedFail(DatePickerController.FailEven.END_MT_START);
+                break;
+            default:
+                mController.alertSelectedFail(DatePickerController.FailEven.CONTAIN_INVALID);
+                break;
+        }
+    }
+
+    /**
+     * 只刷新新旧选择范围覆盖到的月份
+     *
+     * @param oldFirst 原来的开始日期
+     * @param oldLast  原来的结束日期
+     */
+    private void notifySelectionChanged(int oldFirst, int oldLast) {
+        int newFirst = rangeDays.getFirst() != null ? rangeDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int newLast = rangeDays.getLast() != null ? rangeDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        markSelectionChanged(oldFirst, oldLast);
+        markSelectionChanged(newFirst, newLast);
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * 记录一段选择状态发生变化的日期
+     *
+     * @param first 开始日期，NO_DAY表示没有
+     * @param last  结束日期，NO_DAY表示只有开始日期
+     */
+    void markSelectionChanged(int first, int last) {
+        if (first == CalendarUtils.NO_DAY) {
+            return;
+        }
+        if (last == CalendarUtils.NO_DAY || last < first) {
+            last = first;
+        }
+        if (mChangedRangeCount * 2 == mChangedRanges.length) {
+            int[] ranges = new int[mChangedRanges.length * 2];
+            System.arraycopy(mChangedRanges, 0, ranges, 0, mChangedRanges.length);
+            mChangedRanges = ranges;
+        }
+        mChangedRanges[mChangedRangeCount * 2] = first;
+        mChangedRanges[mChangedRangeCount * 2 + 1] = last;
+        mChangedRangeCount++;
+    }
+
+    /**
+     * 把记录的日期换算成月份的位置，合并重叠的部分后分别刷新
+     */
+    void dispatchSelectionChanged() {
+        int itemCount = getItemCount();
+        int[] ranges = mChangedRanges;
+        int count = mChangedRangeCount;
+        mChangedRangeCount = 0;
+
+        // 换算成位置并裁剪到列表范围内，超出范围的丢弃
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int from = Math.max(getPositionForEpochDay(ranges[i * 2]), 0);
+            int to = Math.min(getPositionForEpochDay(ranges[i * 2 + 1]), itemCount - 1);
+            if (from <= to) {
+                ranges[n * 2] = from;
+                ranges[n * 2 + 1] = to;
+                n++;
+            }
+        }
+
+        // 范围很少，插入排序即可
+        for (int i = 1; i < n; i++) {
+            int from = ranges[i * 2];
+            int to = ranges[i * 2 + 1];
+            int j = i - 1;
+            while (j >= 0 && ranges[j * 2] > from) {
+                ranges[(j + 1) * 2] = ranges[j * 2];
+                ranges[(j + 1) * 2 + 1] = ranges[j * 2 + 1];
+                j--;
+            }
+            ranges[(j + 1) * 2] = from;
+            ranges[(j + 1) * 2 + 1] = to;
+        }
+
+        int rebound = 0;
+        int i = 0;
+        while (i < n) {
+            int from = ranges[i * 2];
+            int to = ranges[i * 2 + 1];
+            i++;
+            while (i < n && ranges[i * 2] <= to + 1) {
+                to = Math.max(to, ranges[i * 2 + 1]);
+                i++;
+            }
+            notifyItemRangeChanged(from, to - from + 1, PAYLOAD_SELECTION);
+            rebound += to - from + 1;
+        }
+
+        if (mOnSelectionInvalidateListener != null) {
+            mOnSelectionInvalidateListener.onSelectionInvalidate(rebound);
         }
+    }
+
+    /**
+     * 某一天所在的月份在列表中的位置
+     *
+     * @param epochDay
+     * @return 可能超出列表范围
+     */
+    protected int getPositionForEpochDay(int epochDay) {
+        return CalendarUtils.getMonthIndex(epochDay) - mFirstMonthIndex;
+    }
+
+    /**
+     * 设置月份位图缓存
+     *
+     * @param renderCache 为null时不使用缓存
+     */
+    public void setRenderCache(MonthRenderCache renderCache) {
+        mRenderCache = renderCache;
+    }
+
+    /**
+     * 设置每一天的附加数据（价格、是否可用等）
+     *
+     * @param decorationProvider 为null时不显示
+     */
+    public void setDayDecorationProvider(DayDecorationProvider decorationProvider) {
+        mDecorationProvider = decorationProvider;
+        invalidateRender();
+    }
+
+    /**
+     * 设置不可选的日期，包含这些日期的范围不能被选择
+     *
+     * @param blockedDays 为null时所有日期都可选
+     */
+    public void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+        mSelectionEngine.setBlockedDays(blockedDays);
+        invalidateRender();
+    }
+
+    /**
+     * 影响绘制结果的数据变化后调用，让缓存的位图失效并重新绑定
+     */
+    public void invalidateRender() {
+        mRenderVersion++;
         notifyDataSetChanged();
     }
 
     /**
-     * 两个日期中间隔多少天
+     * 设置性能统计，只影响之后绑定的月份
+     *
+     * @param metrics 为null时不统计
+     */
+    public void setMetrics(PickerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * 设置选择日期后刷新了多少个月份的监听，用于统计
+     *
+     * @param listener
+     */
+    public void setOnSelectionInvalidateListener(OnSelectionInvalidateListener listener) {
+        mOnSelectionInvalidateListener = listener;
+    }
+
+    /**
+     * 每次选择日期后回调刷新的月份数量
+     */
+    public interface OnSelectionInvalidateListener {
+        void onSelectionInvalidate(int itemCount);
+    }
+
+    /**
+     * 两个日期包含首尾共多少天
+     * 按天数计算，不经过毫秒换算，跨夏令时也不会差一天
      *
      * @param first
      * @param last
      * @return
      */
     protected int dateDiff(CalendarDay first, CalendarDay last) {
-        long dayDiff = (last.getDate().getTime() - first.getDate().getTime()) / (1000 * 3600 * 24);
-        return Integer.valueOf(String.valueOf(dayDiff)) + 1;
+        return CalendarUtils.countDays(first.getEpochDay(), last.getEpochDay());
     }
 
     /**
@@ -198,11 +830,12 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
      */
     protected void setDataModel(DatePikerView.DataModel dataModel) {
         this.dataModel = dataModel;
+        initData();
     }
 
-    public static class CalendarDay implements Serializable, Comparable<CalendarDay> {
+    public static class CalendarDay implements Serializable, Parcelable, Comparable<CalendarDay> {
         private static final long serialVersionUID = -5456695978688356202L;
-        private Calendar calendar;
+        private transient Calendar calendar;            // 只是计算时复用，不需要序列化
 
         public int day;
         public int month;
@@ -277,6 +910,27 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
             return calendar.getTime();
         }
 
+        /**
+         * 从1970-01-01开始的天数，比较日期时直接比较这个整数
+         *
+         * @return
+         */
+        public int getEpochDay() {
+            return CalendarUtils.toEpochDay(year, month, day);
+        }
+
+        /**
+         * 根据从1970-01-01开始的天数设置年月日
+         *
+         * @param epochDay
+         */
+        public void setEpochDay(int epochDay) {
+            int monthIndex = CalendarUtils.getMonthIndex(epochDay);
+            year = monthIndex >= 0 ? monthIndex / MONTHS_IN_YEAR : (monthIndex + 1) / MONTHS_IN_YEAR - 1;
+            month = monthIndex - year * MONTHS_IN_YEAR;
+            day = epochDay - CalendarUtils.toEpochDay(year, month, 1) + 1;
+        }
+
         public void setTag(String tag) {
             this.tag = tag;
         }
@@ -307,27 +961,48 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
                 throw new IllegalArgumentException("被比较的日期不能是null");
             }
 
-            if (year == calendarDay.year && month == calendarDay.month && day == calendarDay.day) {
+            int epochDay = getEpochDay();
+            int otherEpochDay = calendarDay.getEpochDay();
+            if (epochDay == otherEpochDay) {
                 return 0;
             }
-
-            if (year < calendarDay.year ||
-                    (year == calendarDay.year && month < calendarDay.month) ||
-                    (year == calendarDay.year && month == calendarDay.month && day < calendarDay.day)) {
-                return -1;
-            }
-            return 1;
+            return epochDay < otherEpochDay ? -1 : 1;
         }
 
+        /**
+         * 和compareTo、hashCode一致，按天数比较，没有规范化的年月日（比如1月32日）等于对应的日期
+         *
+         * @param o
+         * @return
+         */
         @Override
         public boolean equals(Object o) {
-            if (o instanceof CalendarDay) {
-                CalendarDay calendarDay = (CalendarDay) o;
-                if (compareTo(calendarDay) == 0) {
-                    return true;
-                }
-            }
-            return false;
+            return o instanceof CalendarDay && getEpochDay() == ((CalendarDay) o).getEpochDay();
+        }
+
+        @Override
+        public int hashCode() {
+            return getEpochDay();
+        }
+
+        /**
+         * 大于比较的日期（只比较年月日）
+         *
+         * @param calendarDay
+         * @return
+         */
+        public boolean after(CalendarDay calendarDay) {
+            return calendarDay != null && getEpochDay() > calendarDay.getEpochDay();
+        }
+
+        /**
+         * 小于比较的日期（只比较年月日）
+         *
+         * @param calendarDay
+         * @return
+         */
+        public boolean before(CalendarDay calendarDay) {
+            return calendarDay != null && getEpochDay() < calendarDay.getEpochDay();
         }
 
         /**
@@ -337,13 +1012,7 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
          * @return
          */
         public boolean after(Object o) {
-            if (o instanceof CalendarDay) {
-                CalendarDay calendarDay = (CalendarDay) o;
-                if (compareTo(calendarDay) == 1) {
-                    return true;
-                }
-            }
-            return false;
+            return o instanceof CalendarDay && after((CalendarDay) o);
         }
 
         /**
@@ -353,14 +1022,36 @@ public class DatePickAdapter extends RecyclerView.Adapter<DatePickAdapter.ViewHo
          * @return
          */
         public boolean before(Object o) {
-            if (o instanceof CalendarDay) {
-                CalendarDay calendarDay = (CalendarDay) o;
-                if (compareTo(calendarDay) == -1) {
-                    return true;
-                }
-            }
-            return false;
+            return o instanceof CalendarDay && before((CalendarDay) o);
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
         }
+
+        /**
+         * 年月日压缩成一个天数
+         */
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(getEpochDay());
+            dest.writeString(tag);
+        }
+
+        public static final Creator<CalendarDay> CREATOR = new Creator<CalendarDay>() {
+            @Override
+            public CalendarDay createFromParcel(Parcel source) {
+                CalendarDay calendarDay = newCalendarDay(source.readInt());
+                calendarDay.tag = source.readString();
+                return calendarDay;
+            }
+
+            @Override
+            public CalendarDay[] newArray(int size) {
+                return new CalendarDay[size];
+            }
+        };
     }
 
     public static class SelectedDays<K> implements Serializable {
@@ -0,0 +1,57 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * 日历列表的LayoutManager，滚动时让GapWorker按设置的深度和滚动速度预取后面的月份
+ * 预取的月份在空闲时间绑定，绑定时会生成缓存的位图
+ */
+class DatePickLayoutManager extends LinearLayoutManager {
+    private static final int FLING_DELTA_DP = 40;   // 一帧滚动超过这个距离（dp）认为是快速滑动，加倍预取
+    private static final int MAX_SPEED_FACTOR = 4;  // 快速滑动时最多预取几倍的月份
+
+    private final int mFlingDelta;                  // FLING_DELTA_DP换算成像素
+    private int mPrefetchDepth = 1;                 // 沿滚动方向预取几个月
+
+    DatePickLayoutManager(Context context) {
+        super(context);
+        mFlingDelta = Math.max((int) (FLING_DELTA_DP * context.getResources().getDisplayMetrics().density), 1);
+    }
+
+    /**
+     * @param prefetchDepth 慢速滚动时沿滚动方向预取几个月，至少为1，快速滑动时按速度成倍增加
+     */
+    void setPrefetchDepth(int prefetchDepth) {
+        mPrefetchDepth = Math.max(prefetchDepth, 1);
+    }
+
+    @Override
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        // 父类已经预取了紧挨着可见区域的下一个月
+        super.collectAdjacentPrefetchPositions(dx, dy, state, layoutPrefetchRegistry);
+
+        // dx、dy是上一帧滚动的距离，滚动越快预取越多
+        int delta = getOrientation() == HORIZONTAL ? dx : dy;
+        int speedFactor = Math.min(1 + Math.abs(delta) / mFlingDelta, MAX_SPEED_FACTOR);
+        int depth = mPrefetchDepth * speedFactor;
+        if (depth <= 1 || delta == 0 || getChildCount() == 0) {
+            return;
+        }
+        boolean forward = delta > 0;
+        View edgeChild = getChildAt(forward ? getChildCount() - 1 : 0);
+        int edgePosition = getPosition(edgeChild);
+        // 月份的高度差别不大，用边缘的月份估算距离，只影响预取的先后顺序
+        int itemSize = Math.max(getOrientation() == HORIZONTAL ? edgeChild.getWidth() : edgeChild.getHeight(), 1);
+        int itemCount = state.getItemCount();
+        for (int i = 2; i <= depth; i++) {
+            int position = forward ? edgePosition + i : edgePosition - i;
+            if (position < 0 || position >= itemCount) {
+                break;
+            }
+            layoutPrefetchRegistry.addPosition(position, (i - 1) * itemSize);
+        }
+    }
+}
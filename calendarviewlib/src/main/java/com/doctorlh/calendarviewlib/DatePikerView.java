@@ -1,28 +1,51 @@
 package com.doctorlh.calendarviewlib;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.PagerSnapHelper;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.View;
 
 import java.io.Serializable;
+import java.util.Locale;
 
 /**
  * Created by 14074533 on 2017/4/27.
  */
 public class DatePikerView extends RecyclerView {
+    public static final int LAYOUT_VERTICAL = 0;            // 竖直滚动的月份列表
+    public static final int LAYOUT_HORIZONTAL_PAGER = 1;    // 横向翻页，每页一个月
+    public static final int LAYOUT_YEAR_GRID = 2;           // 年份总览，每一项是12个小月份
+    public static final int LAYOUT_WEEK_ROWS = 3;           // 竖直滚动，每个月拆成头部和每一周作为单独的项
+
     protected Context mContext;
     protected DatePickAdapter mAdapter;
     private DatePickerController mController;
     protected int mCurrentScrollState = 0;
-    protected long mPreviousScrollPosition;
     protected int mPreviousScrollState = 0;
-    private TypedArray typedArray;
+    private final DateViewTheme mTheme;                 // 只解析一次，所有月份共用
+    private Locale mLocale = Locale.getDefault();       // 头部文字使用的语言
     private OnScrollListener onScrollListener;
 
     private DataModel dataModel;
+    private DatePickAdapter.OnSelectionInvalidateListener mOnSelectionInvalidateListener;
+    private PickerMetrics mMetrics;                         // 性能统计，为null时不统计
+    private MonthRenderCache mRenderCache;                  // 月份位图缓存，DataModel.renderCacheBytes大于0时使用
+    private boolean mRenderCacheRegistered;
+    private boolean mAttached;
+    private DatePickLayoutManager mLayoutManager;
+    private DayDecorationProvider mDecorationProvider;      // 每一天的附加数据
+    private BlockedDays mBlockedDays;                       // 不可选的日期
+    private PagerSnapHelper mSnapHelper;                    // 横向翻页时对齐到整月
+    private YearPickAdapter mYearAdapter;                   // 年份总览时使用的Adapter
+    private OnMonthClickListener mOnMonthClickListener;
+    private SavedState mPendingSavedState;                  // 恢复状态时还没有设置参数，等setParameter之后再恢复
 
     public DatePikerView(Context context) {
         this(context, null);
@@ -34,39 +57,150 @@ public class DatePikerView extends RecyclerView {
 
     public DatePikerView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
-        typedArray = context.obtainStyledAttributes(attrs, R.styleable.DatePikerView);
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.DatePikerView);
+        mTheme = new DateViewTheme(typedArray);
+        typedArray.recycle();
         setLayoutParams(new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
         init(context);
     }
 
     public void init(Context paramContext) {
-        setLayoutManager(new LinearLayoutManager(paramContext));
+        mLayoutManager = new DatePickLayoutManager(paramContext);
+        setLayoutManager(mLayoutManager);
         mContext = paramContext;
-        setUpListView();
 
         onScrollListener = new OnScrollListener() {
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                final DateView child = (DateView) recyclerView.getChildAt(0);
+                final View child = recyclerView.getChildAt(0);
                 if (child == null) {
                     return;
                 }
 
-                mPreviousScrollPosition = dy;
                 mPreviousScrollState = mCurrentScrollState;
             }
         };
+        setUpListView();
     }
 
     protected void setUpAdapter() {
-        if (mAdapter == null) {
-            mAdapter = new DatePickAdapter(getContext(), typedArray, mController, dataModel);
-            setAdapter(mAdapter);
+        setUpRenderCache();
+        boolean weekRows = dataModel.layoutMode == LAYOUT_WEEK_ROWS;
+        if (mAdapter == null || (mAdapter instanceof WeekRowAdapter) != weekRows) {
+            mAdapter = weekRows ? new WeekRowAdapter(getContext(), mTheme, mController, dataModel)
+                    : new DatePickAdapter(getContext(), mTheme, mController, dataModel);
+            mAdapter.setOnSelectionInvalidateListener(mOnSelectionInvalidateListener);
+            mAdapter.setMetrics(mMetrics);
+            mAdapter.setRenderCache(mRenderCache);
+            mAdapter.setDayDecorationProvider(mDecorationProvider);
+            mAdapter.setBlockedDays(mBlockedDays);
+        } else {
+            mAdapter.setDataModel(dataModel);
+            mAdapter.setRenderCache(mRenderCache);
         }
+        mLayoutManager.setPrefetchDepth(dataModel.prefetchDepth);
+        setUpLayoutMode();
         mAdapter.notifyDataSetChanged();
     }
 
+    /**
+     * 按DataModel.layoutMode设置滚动方向、翻页对齐和Adapter
+     */
+    private void setUpLayoutMode() {
+        int layoutMode = dataModel.layoutMode;
+        mLayoutManager.setOrientation(layoutMode == LAYOUT_HORIZONTAL_PAGER ? LinearLayoutManager.HORIZONTAL : LinearLayoutManager.VERTICAL);
+        if (layoutMode == LAYOUT_HORIZONTAL_PAGER && mSnapHelper == null) {
+            mSnapHelper = new PagerSnapHelper();
+            mSnapHelper.attachToRecyclerView(this);
+        } else if (layoutMode != LAYOUT_HORIZONTAL_PAGER && mSnapHelper != null) {
+            mSnapHelper.attachToRecyclerView(null);
+            mSnapHelper = null;
+        }
+
+        // 年份总览的位置和参数有关，每次设置参数都重新创建
+        if (mYearAdapter != null) {
+            mYearAdapter.detach();
+            mYearAdapter = null;
+        }
+        if (layoutMode == LAYOUT_YEAR_GRID) {
+            mYearAdapter = new YearPickAdapter(getContext(), mAdapter, dataModel);
+            mYearAdapter.setBlockedDays(mBlockedDays);
+            mYearAdapter.setOnMonthClickListener(mOnMonthClickListener);
+            mYearAdapter.attach();
+            setAdapter(mYearAdapter);
+        } else if (getAdapter() != mAdapter) {
+            setAdapter(mAdapter);
+        }
+    }
+
+    /**
+     * 按DataModel.renderCacheBytes创建或移除月份位图缓存
+     */
+    private void setUpRenderCache() {
+        long maxBytes = dataModel.renderCacheBytes;
+        if (mRenderCache != null && mRenderCache.getMaxBytes() == maxBytes) {
+            return;
+        }
+        unregisterRenderCache();
+        mRenderCache = maxBytes > 0 ? new MonthRenderCache(maxBytes) : null;
+        registerRenderCache();
+    }
+
+    private void registerRenderCache() {
+        if (mRenderCache != null && !mRenderCacheRegistered && mAttached) {
+            getContext().getApplicationContext().registerComponentCallbacks(mRenderCache);
+            mRenderCacheRegistered = true;
+        }
+    }
+
+    private void unregisterRenderCache() {
+        if (mRenderCache != null && mRenderCacheRegistered) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mRenderCache);
+            mRenderCacheRegistered = false;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        // 内存紧张时由系统回调淘汰缓存的位图
+        registerRenderCache();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        unregisterRenderCache();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(mLocale)) {
+            // 头部文字已经变化，缓存的位图不能再用，重新绑定时从新语言的缓存获取文字
+            mLocale = locale;
+            if (mRenderCache != null) {
+                mRenderCache.evictAll();
+            }
+            if (mAdapter != null) {
+                mAdapter.notifyDataSetChanged();
+            }
+        }
+    }
+
+    /**
+     * 月份位图缓存，可以读取命中和未命中的次数
+     *
+     * @return 没有开启缓存时返回null
+     */
+    public MonthRenderCache getRenderCache() {
+        return mRenderCache;
+    }
+
     protected void setUpListView() {
         setVerticalScrollBarEnabled(false);
         setOnScrollListener(onScrollListener);
@@ -88,25 +222,371 @@ public class DatePikerView extends RecyclerView {
         this.mController = mController;
         setUpAdapter();
         // 跳转到入住日期所在的月份
-        scrollToSelectedPosition(dataModel.selectedDays, dataModel.monthStart);
+        scrollToSelectedPosition(dataModel.selectedDays);
+        if (mPendingSavedState != null) {
+            restoreState(mPendingSavedState);
+            mPendingSavedState = null;
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        if (mAdapter == null) {
+            return state;
+        }
+        DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays = dataModel.selectedDays;
+        state.selectedFirst = selectedDays.getFirst() != null ? selectedDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        state.selectedLast = selectedDays.getLast() != null ? selectedDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+        // 复制一份，保存后继续选择不能改变已保存的状态
+        state.selectedIntervals = dataModel.selectedIntervals != null ? new DayIntervals(dataModel.selectedIntervals) : null;
+
+        // 按月份而不是位置保存，重新设置参数后开始月份变了也能回到同一个月
+        int position = mLayoutManager.findFirstVisibleItemPosition();
+        View child = getChildCount() > 0 ? getChildAt(0) : null;
+        if (position != NO_POSITION && child != null) {
+            state.anchorMonth = mYearAdapter != null ? mYearAdapter.getYear(position) * 12 : mAdapter.getMonthIndex(position);
+            state.anchorOffset = mLayoutManager.getOrientation() == LinearLayoutManager.HORIZONTAL
+                    ? child.getLeft() - getPaddingLeft() : child.getTop() - getPaddingTop();
+        }
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (mAdapter == null) {
+            mPendingSavedState = savedState;
+        } else {
+            restoreState(savedState);
+        }
+    }
+
+    /**
+     * 恢复选择的日期和滚动位置，不回调controller
+     *
+     * @param state
+     */
+    private void restoreState(SavedState state) {
+        mAdapter.restoreSelection(state.selectedFirst, state.selectedLast, state.selectedIntervals);
+        if (state.anchorMonth != CalendarUtils.NO_DAY) {
+            int position = getPositionForMonth(state.anchorMonth / 12, state.anchorMonth % 12);
+            if (position >= 0 && position < getAdapter().getItemCount()) {
+                mLayoutManager.scrollToPositionWithOffset(position, state.anchorOffset);
+            }
+        }
+    }
+
+    /**
+     * 设置每一天的附加数据（价格、是否可用等），可以使用{@link DayDecorationStore}
+     *
+     * @param decorationProvider 为null时不显示
+     */
+    public void setDayDecorationProvider(DayDecorationProvider decorationProvider) {
+        mDecorationProvider = decorationProvider;
+        if (mAdapter != null) {
+            mAdapter.setDayDecorationProvider(decorationProvider);
+        }
+    }
+
+    /**
+     * 附加数据的内容变化后调用，重新绘制所有月份
+     */
+    public void notifyDayDecorationsChanged() {
+        if (mAdapter != null) {
+            mAdapter.invalidateRender();
+        }
+    }
+
+    /**
+     * 设置不可选的日期，选择的范围包含这些日期时回调{@link DatePickerController.FailEven#CONTAIN_INVALID}
+     *
+     * @param blockedDays 为null时所有日期都可选
+     */
+    public void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+        if (mYearAdapter != null) {
+            mYearAdapter.setBlockedDays(blockedDays);
+        }
+        if (mAdapter != null) {
+            mAdapter.setBlockedDays(blockedDays);
+        }
+    }
+
+    /**
+     * 不可选的日期变化后调用，重新绘制所有月份
+     */
+    public void notifyBlockedDaysChanged() {
+        if (mAdapter != null) {
+            mAdapter.invalidateRender();
+        }
+    }
+
+    /**
+     * 设置年份总览中点击月份的监听
+     *
+     * @param listener
+     */
+    public void setOnMonthClickListener(OnMonthClickListener listener) {
+        mOnMonthClickListener = listener;
+        if (mYearAdapter != null) {
+            mYearAdapter.setOnMonthClickListener(listener);
+        }
+    }
+
+    /**
+     * 设置选择日期后刷新了多少个月份的监听，用于统计
+     *
+     * @param listener
+     */
+    public void setOnSelectionInvalidateListener(DatePickAdapter.OnSelectionInvalidateListener listener) {
+        mOnSelectionInvalidateListener = listener;
+        if (mAdapter != null) {
+            mAdapter.setOnSelectionInvalidateListener(listener);
+        }
     }
 
-    private void scrollToSelectedPosition(DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays, int monthStart) {
-        if (selectedDays != null && selectedDays.getFirst() != null && selectedDays.getFirst().month > monthStart) {
-            int position = selectedDays.getFirst().month - monthStart;
+    /**
+     * 开启性能统计，统计绑定、绘制、测量的耗时，创建ViewHolder的次数和点击到回调的延迟
+     * 已经显示的月份重新绑定后开始统计绘制和测量
+     *
+     * @param metrics 为null时关闭
+     */
+    public void setMetrics(PickerMetrics metrics) {
+        mMetrics = metrics;
+        if (mAdapter != null) {
+            mAdapter.setMetrics(metrics);
+            mAdapter.notifyDataSetChanged();
+        }
+    }
+
+    public PickerMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 开始一次批量修改选择的日期，修改完后调用{@link SelectionBatch#commit()}
+     * 适合恢复状态或者一次设置很多日期，提交时只回调一次并只刷新变化的月份
+     *
+     * @return
+     */
+    public SelectionBatch beginSelection() {
+        if (mAdapter == null) {
+            throw new IllegalStateException("请先调用setParameter设置参数");
+        }
+        return mAdapter.beginSelection();
+    }
+
+    /**
+     * 月份在当前列表中的位置，年份总览时是所在年份的位置
+     *
+     * @param year
+     * @param month 0~11
+     * @return 可能超出列表范围
+     */
+    private int getPositionForMonth(int year, int month) {
+        return mYearAdapter != null ? mYearAdapter.getPositionForYear(year) : mAdapter.getPositionForMonth(year, month);
+    }
+
+    private void scrollToSelectedPosition(DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays) {
+        int itemCount = getAdapter().getItemCount();
+        int position = -1;
+        if (selectedDays != null && selectedDays.getFirst() != null) {
+            position = getPositionForMonth(selectedDays.getFirst().year, selectedDays.getFirst().month);
+        }
+        if (position >= 0 && position < itemCount) {
             scrollToPosition(position);
+        } else if (dataModel.infinite) {
+            // 无限滚动时回到中心的月份
+            scrollToPosition(getPositionForMonth(dataModel.yearStart, dataModel.monthStart));
         } else {
-            scrollToPosition(getAdapter().getItemCount() - 1);
+            scrollToPosition(itemCount - 1);
+        }
+    }
+
+    /**
+     * 点击年份总览中的月份
+     */
+    public interface OnMonthClickListener {
+        /**
+         * @param year
+         * @param month 0~11
+         */
+        void onMonthClick(int year, int month);
+    }
+
+    /**
+     * DayIntervals不依赖Android，由这里写入Parcel：区间数量（null时为-1），然后每段的开始和结束
+     *
+     * @param dest
+     * @param intervals
+     */
+    private static void writeIntervals(Parcel dest, DayIntervals intervals) {
+        if (intervals == null) {
+            dest.writeInt(-1);
+            return;
         }
+        dest.writeInt(intervals.size());
+        for (int i = 0; i < intervals.size(); i++) {
+            dest.writeInt(intervals.getStart(i));
+            dest.writeInt(intervals.getEnd(i));
+        }
+    }
+
+    private static DayIntervals readIntervals(Parcel in) {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        DayIntervals intervals = new DayIntervals();
+        for (int i = 0; i < size; i++) {
+            int start = in.readInt();
+            intervals.add(start, in.readInt());
+        }
+        return intervals;
+    }
+
+    /**
+     * 日历的状态，日期都保存成从1970-01-01开始的天数
+     */
+    static class SavedState extends BaseSavedState {
+        int selectedFirst = CalendarUtils.NO_DAY;               // 开始日期
+        int selectedLast = CalendarUtils.NO_DAY;                // 结束日期
+        DayIntervals selectedIntervals;                         // 多选时选中的日期
+        int anchorMonth = CalendarUtils.NO_DAY;                 // 第一个可见月份的序号（年份 * 12 + 月份）
+        int anchorOffset;                                       // 第一个可见月份顶部的偏移
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            selectedFirst = in.readInt();
+            selectedLast = in.readInt();
+            selectedIntervals = readIntervals(in);
+            anchorMonth = in.readInt();
+            anchorOffset = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            super.writeToParcel(dest, flags);
+            dest.writeInt(selectedFirst);
+            dest.writeInt(selectedLast);
+            writeIntervals(dest, selectedIntervals);
+            dest.writeInt(anchorMonth);
+            dest.writeInt(anchorOffset);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
-    public static class DataModel implements Serializable {
+    public static class DataModel implements Serializable, Parcelable {
+        private static final long serialVersionUID = 2307162411873640519L;
 
         public int yearStart;                                      // 日历开始的年份
         public int monthStart;                                     // 日历开始的月份
         public int monthCount;                                     // 要显示几个月
+        public boolean infinite;                                   // 无限滚动，以yearStart和monthStart为中心，忽略monthCount
         public DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays;  // 默认选择的日期
         public int leastDaysNum;                                   // 至少选择几天
         public int mostDaysNum;                                    // 最多选择几天
+        public long renderCacheBytes;                              // 月份位图缓存的内存上限（字节），0为不缓存
+        public int prefetchDepth;                                  // 滚动时沿滚动方向预取几个月，默认2
+        public int selectionMode;                                  // 选择模式，SelectionEngine.MODE_开头，默认选择一段日期
+        public DayIntervals selectedIntervals;                     // 多选模式下选中的日期
+        public int layoutMode;                                     // 布局方式，LAYOUT_开头，默认竖直滚动
+        public boolean textAtlas;                                  // 日期和标签从预先栅格化的图集绘制，减少文字绘制的开销
+        public boolean dragToSelect;                               // 范围选择时长按日期后拖动选择一段日期
+
+        public DataModel() {
+        }
+
+        protected DataModel(Parcel in) {
+            yearStart = in.readInt();
+            monthStart = in.readInt();
+            monthCount = in.readInt();
+            infinite = in.readInt() != 0;
+            DatePickAdapter.CalendarDay first = readCalendarDay(in);
+            DatePickAdapter.CalendarDay last = readCalendarDay(in);
+            if (first != null || last != null) {
+                selectedDays = new DatePickAdapter.SelectedDays<>(first, last);
+            }
+            leastDaysNum = in.readInt();
+            mostDaysNum = in.readInt();
+            renderCacheBytes = in.readLong();
+            prefetchDepth = in.readInt();
+            selectionMode = in.readInt();
+            selectedIntervals = readIntervals(in);
+            layoutMode = in.readInt();
+            textAtlas = in.readInt() != 0;
+            dragToSelect = in.readInt() != 0;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(yearStart);
+            dest.writeInt(monthStart);
+            dest.writeInt(monthCount);
+            dest.writeInt(infinite ? 1 : 0);
+            writeCalendarDay(dest, selectedDays != null ? selectedDays.getFirst() : null, flags);
+            writeCalendarDay(dest, selectedDays != null ? selectedDays.getLast() : null, flags);
+            dest.writeInt(leastDaysNum);
+            dest.writeInt(mostDaysNum);
+            dest.writeLong(renderCacheBytes);
+            dest.writeInt(prefetchDepth);
+            dest.writeInt(selectionMode);
+            writeIntervals(dest, selectedIntervals);
+            dest.writeInt(layoutMode);
+            dest.writeInt(textAtlas ? 1 : 0);
+            dest.writeInt(dragToSelect ? 1 : 0);
+        }
+
+        /**
+         * 不写入类名，只写入是否为null和日期本身
+         */
+        private static void writeCalendarDay(Parcel dest, DatePickAdapter.CalendarDay calendarDay, int flags) {
+            dest.writeInt(calendarDay != null ? 1 : 0);
+            if (calendarDay != null) {
+                calendarDay.writeToParcel(dest, flags);
+            }
+        }
+
+        private static DatePickAdapter.CalendarDay readCalendarDay(Parcel in) {
+            return in.readInt() != 0 ? DatePickAdapter.CalendarDay.CREATOR.createFromParcel(in) : null;
+        }
+
+        public static final Creator<DataModel> CREATOR = new Creator<DataModel>() {
+            @Override
+            public DataModel createFromParcel(Parcel source) {
+                return new DataModel(source);
+            }
+
+            @Override
+            public DataModel[] newArray(int size) {
+                return new DataModel[size];
+            }
+        };
     }
 }
\ No newline at end of file
@@ -1,23 +1,20 @@
 package com.doctorlh.calendarviewlib;
 
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Paint.Align;
-import android.graphics.Paint.Style;
 import android.graphics.Rect;
-import android.text.format.DateUtils;
-import android.text.format.Time;
+import android.graphics.RectF;
+import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewParent;
 
 import java.security.InvalidParameterException;
-import java.text.DateFormatSymbols;
 import java.util.Calendar;
 import java.util.HashMap;
-import java.util.Locale;
 
 /**
  * 每个月作为一个ItemView
@@ -33,121 +30,102 @@ class DateView extends View {
     public static final String VIEW_PARAMS_WEEK_START = "week_start";
 
     protected static int DEFAULT_HEIGHT = 32;                           // 默认一行的高度
-    protected static int MINI_DAY_NUMBER_TEXT_SIZE;                     // 日期字体的最小尺寸
-    private static int TAG_TEXT_SIZE;                                   // 标签字体大小
-    protected static int MONTH_HEADER_SIZE;                             // 头部的高度（包括年份月份，星期几）
-    protected static int YEAR_MONTH_TEXT_SIZE;                         // 头部年份月份的字体大小
-    protected static int WEEK_TEXT_SIZE;                                // 头部年份月份的字体大小
+
+    static final int ROW_ALL = -2;                                      // 绘制整个月
+    static final int ROW_HEADER = -1;                                   // 只绘制头部
+
+    static final String[] DAY_NUMBER_TEXTS = new String[32];            // 预先生成的日期文字（1~31），绘制时不再格式化
+
+    static {
+        for (int i = 1; i < DAY_NUMBER_TEXTS.length; i++) {
+            DAY_NUMBER_TEXTS[i] = String.valueOf(i);
+        }
+    }
 
     protected int mPadding = 0;
 
-    protected Paint mWeekTextPaint;                     // 头部星期几的字体画笔
-    protected Paint mDayTextPaint;
-    protected Paint mTagPaint;
-    protected Paint mYearMonthPaint;                    // 头部的画笔
-    protected Paint mSelectedDayBgPaint;
-    // 开始结束之间的背景
-    protected Paint mSelectedBetweenBgPaint;
-    protected int mCurrentDayTextColor;                 // 今天的字体颜色
-    protected int mYearMonthTextColor;                  // 头部年份和月份字体颜色
-    protected int mWeekTextColor;                       // 头部星期几字体颜色
-    protected int mDayTextColor;                        // 日期字体颜色
-    protected int mSelectedDayTextColor;                // 被选中的日期字体颜色
-    protected int mSelectedDaysBgColor;                 // 选中的日期背景颜色
-
-    private final StringBuilder mStringBuilder;
+    private final DateViewTheme mTheme;                 // 共用的主题，画笔都来自这里，不能修改
+    private final int mMonthHeaderSize;                 // 头部的高度（包括年份月份，星期几）
+
+    private String mMonthTitle;                         // 头部年份月份文字，绑定时从缓存获取
+
+    private final Rect mDayRect = new Rect();           // 绘制cell背景复用的Rect
+    private final RectF mRoundRect = new RectF();       // 绘制圆角背景复用的RectF
 
     protected boolean mHasToday = false;
     protected int mToday = -1;
     protected int mWeekStart = 1;               // 一周的第一天（不同国家的一星期的第一天不同）
     protected int mNumDays = 7;                 // 一行几列
     protected int mNumCells;                    // 一个月有多少天
-    private int mDayOfWeekStart = 0;            // 日期对应星期几
     protected int mRowWidth = DEFAULT_HEIGHT;
     protected int mRowHeight = DEFAULT_HEIGHT;  // 行高
     protected int mWidth;                       // simpleMonthView的宽度
 
     protected int mYear;
     protected int mMonth;
-    final Time today;
-
-    private final Calendar mCalendar;
-    private final Calendar mDayLabelCalendar;           // 用于显示星期几
-    private final Boolean isPrevDayEnabled;             // 今天以前的日期是否能被操作
+    private int mTodayEpochDay;                         // 今天对应的天数，每次绑定时更新
+    private final int mDefaultWeekStart;                // 系统默认的一周第一天
+    private CalendarUtils.MonthLayout mMonthLayout;     // 当前月份的布局
+    private final boolean isPrevDayEnabled;             // 今天以前的日期是否能被操作
 
     private int mNumRows;
 
-    private DateFormatSymbols mDateFormatSymbols = new DateFormatSymbols();
-
     private OnDayClickListener mOnDayClickListener;
+    private OnDayDragListener mOnDayDragListener;       // 长按后拖动选择，为null时只响应点击
+    private final Runnable mLongPressRunnable;          // 长按开始拖动，只创建一次
+    private final int mTouchSlop;
+    private float mDownX;                               // 按下的位置
+    private float mDownY;
+    private boolean mDragging;                          // 是否正在拖动选择
+    private float mColumnScale;                         // 横坐标换算成第几列的比例，在onSizeChanged中计算一次
+    private MonthParams mLegacyParams;                  // 兼容HashMap参数时复用
+
+    private MonthRenderCache mRenderCache;              // 月份位图缓存，为null时每次都直接绘制
+    private TextAtlas mTextAtlas;                       // 日期和标签的文字图集，为null时直接绘制文字
+    private PickerMetrics mMetrics;                     // 性能统计，为null时不统计
+    private DayDecorationProvider mDecorationProvider;  // 每一天的附加数据
+    private BlockedDays mBlockedDays;                   // 不可选的日期
+    private int mRenderVersion;                         // 影响绘制结果的数据版本
 
     DatePickAdapter.CalendarDay mStartDate;          // 开始日期
     DatePickAdapter.CalendarDay mEndDate;            // 结束日期
 
-    DatePickAdapter.CalendarDay cellCalendar;        // cell的对应的日期
-
-    /**
-     * @param context
-     * @param typedArray
-     * @param dataModel
-     */
-    public DateView(Context context, TypedArray typedArray, DatePikerView.DataModel dataModel) {
-        super(context);
-        mDayLabelCalendar = Calendar.getInstance();
-        mCalendar = Calendar.getInstance();
-        today = new Time(Time.getCurrentTimezone());
-        today.setToNow();
-        mCurrentDayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorCurrentDay, Color.BLACK);
-        mYearMonthTextColor = typedArray.getColor(R.styleable.DatePikerView_colorYearMonthText, Color.BLACK);
-        mWeekTextColor = typedArray.getColor(R.styleable.DatePikerView_colorWeekText, Color.BLACK);
-        mDayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorNormalDayText, Color.BLACK);
-        mSelectedDaysBgColor = typedArray.getColor(R.styleable.DatePikerView_colorSelectedDayBackground, Color.YELLOW);
-        mSelectedDayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorSelectedDayText, Color.WHITE);
-
-        mStringBuilder = new StringBuilder(50);
+    private int mStartEpochDay = CalendarUtils.NO_DAY;  // 开始日期对应的天数，绘制时只做整数比较
+    private int mEndEpochDay = CalendarUtils.NO_DAY;    // 结束日期对应的天数
 
-        MINI_DAY_NUMBER_TEXT_SIZE = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeDay, 28);
-        TAG_TEXT_SIZE = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeTag, 20);
-        YEAR_MONTH_TEXT_SIZE = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeYearMonth, 32);
-        WEEK_TEXT_SIZE = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeWeek, 20);
-        MONTH_HEADER_SIZE = typedArray.getDimensionPixelOffset(R.styleable.DatePikerView_headerMonthHeight, 100);
-        mRowHeight = ((typedArray.getDimensionPixelSize(R.styleable.DatePikerView_rowHeight, 110)));
-        isPrevDayEnabled = typedArray.getBoolean(R.styleable.DatePikerView_enablePreviousDay, false);
-
-        cellCalendar = new DatePickAdapter.CalendarDay();
-
-        initView();
-    }
-
-    /**
-     * 计算每个月的日期占用的行数
-     *
-     * @return
-     */
-    private int calculateNumRows() {
-        int offset = findDayOffset();
-        int dividend = (offset + mNumCells) / mNumDays;
-        int remainder = (offset + mNumCells) % mNumDays;
-        return (dividend + (remainder > 0 ? 1 : 0));
-    }
+    // 选择范围在本月内的部分（几号），绑定和选择变化时计算一次，绘制时每个cell只比较整数
+    private int mSpanFirstDay = 1;                      // 第一个有选择背景的日期，没有时大于mSpanLastDay
+    private int mSpanLastDay = 0;                       // 最后一个有选择背景的日期
+    private int mSpanStartDay = -1;                     // 开始日期是几号，不在本月为-1
+    private int mSpanEndDay = -1;                       // 结束日期是几号，不在本月或者和开始日期相同为-1
+    private boolean mSpanSingleDay;                     // 开始和结束是同一天
+    private int mFirstEpochDay;                         // 本月1号对应的天数
+    private DayIntervals mSelectedIntervals;            // 多选时选中的日期，为null时是范围选择
+    private int mWindowRow = ROW_ALL;                   // 只绘制月份的一部分：ROW_ALL、ROW_HEADER或者第几行
 
     /**
-     * 绘制头部的一行星期几
+     * 不解析任何属性，创建的开销很小
      *
-     * @param canvas
+     * @param context
+     * @param theme   同一个日历的所有DateView共用
      */
-    private void drawMonthDayLabels(Canvas canvas) {
-        int y = MONTH_HEADER_SIZE - (WEEK_TEXT_SIZE / 2);
-        // 一个cell的二分之宽度
-        int dayWidthHalf = (mWidth - mPadding * 2) / (mNumDays * 2);
-
-        for (int i = 0; i < mNumDays; i++) {
-            int calendarDay = (i + mWeekStart) % mNumDays;
-            int x = (2 * i + 1) * dayWidthHalf + mPadding;
-            mDayLabelCalendar.set(Calendar.DAY_OF_WEEK, calendarDay);
-            canvas.drawText(mDateFormatSymbols.getShortWeekdays()[mDayLabelCalendar.get(Calendar.DAY_OF_WEEK)].toUpperCase(Locale.getDefault()),
-                    x, y, mWeekTextPaint);
-        }
+    public DateView(Context context, DateViewTheme theme) {
+        super(context);
+        mTheme = theme;
+        mDefaultWeekStart = Calendar.getInstance().getFirstDayOfWeek();
+        mTodayEpochDay = CalendarUtils.getTodayEpochDay();
+
+        mMonthHeaderSize = theme.monthHeaderSize;
+        mRowHeight = theme.rowHeight;
+        isPrevDayEnabled = theme.prevDayEnabled;
+
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mLongPressRunnable = new Runnable() {
+            @Override
+            public void run() {
+                startDrag();
+            }
+        };
     }
 
     /**
@@ -157,10 +135,8 @@ class DateView extends View {
      */
     private void drawMonthTitle(Canvas canvas) {
         int x = (mWidth + 2 * mPadding) / 2;
-        int y = MONTH_HEADER_SIZE / 2 + (YEAR_MONTH_TEXT_SIZE / 3);
-        StringBuilder stringBuilder = new StringBuilder(getMonthAndYearString().toLowerCase());
-        stringBuilder.setCharAt(0, Character.toUpperCase(stringBuilder.charAt(0)));
-        canvas.drawText(stringBuilder.toString(), x, y, mYearMonthPaint);
+        int y = mMonthHeaderSize / 2 + (mTheme.yearMonthTextSize / 3);
+        canvas.drawText(mMonthTitle, x, y, mTheme.yearMonthPaint);
     }
 
     /**
@@ -169,42 +145,23 @@ class DateView extends View {
      * @return
      */
     private int findDayOffset() {
-        return (mDayOfWeekStart < mWeekStart ? (mDayOfWeekStart + mNumDays) : mDayOfWeekStart)
-                - mWeekStart;
-    }
-
-    /**
-     * 获取年份和月份
-     *
-     * @return
-     */
-    private String getMonthAndYearString() {
-        int flags = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_NO_MONTH_DAY;
-        mStringBuilder.setLength(0);
-        long millis = mCalendar.getTimeInMillis();
-        return DateUtils.formatDateRange(getContext(), millis, millis, flags);
+        return mMonthLayout.dayOffset;
     }
 
     private void onDayClick(DatePickAdapter.CalendarDay calendarDay) {
-        if (mOnDayClickListener != null && (isPrevDayEnabled || !prevDay(calendarDay.day, today))) {
+        if (mOnDayClickListener != null && (isPrevDayEnabled || !prevDay(calendarDay.day))) {
             mOnDayClickListener.onDayClick(this, calendarDay);
         }
     }
 
-    private boolean sameDay(int monthDay, Time time) {
-        return (mYear == time.year) && (mMonth == time.month) && (monthDay == time.monthDay);
-    }
-
     /**
      * 判断是否是已经过去的日期
      *
      * @param monthDay
-     * @param time
      * @return
      */
-    private boolean prevDay(int monthDay, Time time) {
-        return ((mYear < time.year)) || (mYear == time.year && mMonth < time.month) ||
-                (mYear == time.year && mMonth == time.month && monthDay < time.monthDay);
+    private boolean prevDay(int monthDay) {
+        return mFirstEpochDay + monthDay - 1 < mTodayEpochDay;
     }
 
     /**
@@ -213,65 +170,128 @@ class DateView extends View {
      * @param canvas
      */
     protected void drawMonthCell(Canvas canvas) {
-        int y = MONTH_HEADER_SIZE + mRowHeight / 2;
+        drawMonthCell(canvas, 1, mNumCells);
+    }
+
+    /**
+     * 绘制[fromDay, toDay]的cell，坐标和绘制整个月时相同
+     *
+     * @param canvas
+     * @param fromDay 从几号开始
+     * @param toDay   到几号结束
+     */
+    private void drawMonthCell(Canvas canvas, int fromDay, int toDay) {
+        int cellIndex = findDayOffset() + fromDay - 1;
+        int y = mMonthHeaderSize + (cellIndex / mNumDays) * mRowHeight + mRowHeight / 2;
         int paddingDay = (mWidth - 2 * mPadding) / (2 * mNumDays);
-        int dayOffset = findDayOffset();
-        int day = 1;
+        int dayOffset = cellIndex % mNumDays;
+        int day = fromDay;
+        int cellEpochDay = mFirstEpochDay + fromDay - 1;
+        DateViewTheme theme = mTheme;
+        float dayTextY = y + theme.dayTextOffsetY;
+        float tagTextY = y + mRowHeight / 4 + theme.dayTextOffsetY;
+
+        if (mSelectedIntervals == null) {
+            drawRangeBand(canvas, fromDay, toDay);
+        }
 
-        while (day <= mNumCells) {
+        while (day <= toDay) {
             int x = paddingDay * (1 + dayOffset * 2) + mPadding;
 
-            mDayTextPaint.setColor(mDayTextColor);
-
-            cellCalendar.setDay(mYear, mMonth, day);
+            // 按状态选择画笔，共用的画笔不修改颜色
+            Paint dayTextPaint = theme.dayTextPaint;
 
             // 已过去的日期
             boolean isPrevDay = false;
-            if (!isPrevDayEnabled && prevDay(day, today)) {
+            if (!isPrevDayEnabled && cellEpochDay < mTodayEpochDay) {
                 isPrevDay = true;
-                canvas.drawText(String.format("%d", day), x, getTextYCenter(mDayTextPaint, y), mDayTextPaint);
+                drawDayNumber(canvas, day, x, dayTextY, dayTextPaint);
             }
 
-            // 开始时间和结束时间相同，则显示单日
-            if (mStartDate != null && mEndDate != null && mStartDate.equals(mEndDate) && cellCalendar.equals(mStartDate)) {
-                drawDayBg(canvas, x, y, mSelectedDayBgPaint);
-                mDayTextPaint.setColor(mSelectedDayTextColor);
-                canvas.drawText("单日", x, getTextYCenter(mDayTextPaint, y + mRowHeight / 4), mTagPaint);
+            boolean isSelectedEdge = false;
+            if (mSelectedIntervals != null) {
+                // 多选时只有还没确定结束日期的一段显示开始，其他选中的日期二分查找所在的区间
+                if (cellEpochDay == mStartEpochDay) {
+                    isSelectedEdge = true;
+                    drawSelectedDayBg(canvas, x, y);
+                    dayTextPaint = theme.selectedDayTextPaint;
+                    drawTag(canvas, TextAtlas.TAG_START, x, tagTextY);
+                } else {
+                    int index = mSelectedIntervals.indexOf(cellEpochDay);
+                    if (index >= 0) {
+                        if (cellEpochDay == mSelectedIntervals.getStart(index) || cellEpochDay == mSelectedIntervals.getEnd(index)) {
+                            drawSelectedDayBg(canvas, x, y);
+                            dayTextPaint = theme.selectedDayTextPaint;
+                        } else {
+                            drawDayBg(canvas, x, y, theme.selectedBetweenBgPaint);
+                        }
+                    }
+                }
+            } else if (day >= mSpanFirstDay && day <= mSpanLastDay) {
+                if (day == mSpanStartDay) {
+                    // 开始日期，开始和结束是同一天时显示单日
+                    isSelectedEdge = true;
+                    drawSelectedDayBg(canvas, x, y);
+                    dayTextPaint = theme.selectedDayTextPaint;
+                    drawTag(canvas, mSpanSingleDay ? TextAtlas.TAG_SINGLE : TextAtlas.TAG_START, x, tagTextY);
+                } else if (day == mSpanEndDay) {
+                    isSelectedEdge = true;
+                    drawSelectedDayBg(canvas, x, y);
+                    dayTextPaint = theme.selectedDayTextPaint;
+                    drawTag(canvas, TextAtlas.TAG_END, x, tagTextY);
+                }
+                // 开始和结束之间的日期由drawRangeBand按行整体绘制
             }
 
-            // 绘制起始日期的方格
-            if (mStartDate != null && cellCalendar.equals(mStartDate) && !mStartDate.equals(mEndDate)) {
-                drawDayBg(canvas, x, y, mSelectedDayBgPaint);
-                mDayTextPaint.setColor(mSelectedDayTextColor);
-                canvas.drawText("开始", x, getTextYCenter(mDayTextPaint, y + mRowHeight / 4), mTagPaint);
+            // 不可选的日期置灰
+            if (mBlockedDays != null && !isSelectedEdge && mBlockedDays.isBlocked(cellEpochDay)) {
+                dayTextPaint = theme.disabledDayTextPaint;
             }
 
-            // 绘制结束日期的方格
-            if (mEndDate != null && cellCalendar.equals(mEndDate) && !mStartDate.equals(mEndDate)) {
-                drawDayBg(canvas, x, y, mSelectedDayBgPaint);
-                mDayTextPaint.setColor(mSelectedDayTextColor);
-                canvas.drawText("结束", x, getTextYCenter(mDayTextPaint, y + mRowHeight / 4), mTagPaint);
-            }
-
-            // 在开始和结束之间的日期
-            if (cellCalendar.after(mStartDate) && cellCalendar.before(mEndDate)) {
-                drawDayBg(canvas, x, y, mSelectedBetweenBgPaint);
+            // 每一天的附加数据，开始结束的标签位置不再显示
+            if (mDecorationProvider != null && !isSelectedEdge) {
+                if (mDecorationProvider.getState(cellEpochDay) == DayDecorationProvider.STATE_UNAVAILABLE) {
+                    dayTextPaint = theme.disabledDayTextPaint;
+                }
+                String label = mDecorationProvider.getLabel(cellEpochDay);
+                if (label != null) {
+                    canvas.drawText(label, x, tagTextY, theme.decorationPaint);
+                }
             }
 
             // 绘制日期
             if (!isPrevDay) {
-                canvas.drawText(String.format("%d", day), x, getTextYCenter(mDayTextPaint, y), mDayTextPaint);
+                drawDayNumber(canvas, day, x, dayTextY, dayTextPaint);
             }
 
+            cellEpochDay++;
             dayOffset++;
             if (dayOffset == mNumDays) {
                 dayOffset = 0;
                 y += mRowHeight;
+                dayTextY += mRowHeight;
+                tagTextY += mRowHeight;
             }
             day++;
         }
     }
 
+    private void drawDayNumber(Canvas canvas, int day, int x, float y, Paint paint) {
+        if (mTextAtlas != null) {
+            mTextAtlas.drawDay(canvas, day, x, y, paint);
+        } else {
+            canvas.drawText(DAY_NUMBER_TEXTS[day], x, y, paint);
+        }
+    }
+
+    private void drawTag(Canvas canvas, int tag, int x, float y) {
+        if (mTextAtlas != null) {
+            mTextAtlas.drawTag(canvas, tag, x, y, mTheme.tagPaint);
+        } else {
+            canvas.drawText(TextAtlas.TAG_TEXTS[tag], x, y, mTheme.tagPaint);
+        }
+    }
+
     /**
      * 根据坐标获取对应的日期
      *
@@ -280,152 +300,490 @@ class DateView extends View {
      * @return
      */
     public DatePickAdapter.CalendarDay getDayFromLocation(float x, float y) {
-        int padding = mPadding;
-        if ((x < padding) || (x > mWidth - mPadding)) {
-            return null;
-        }
-
-        int yDay = (int) (y - MONTH_HEADER_SIZE) / mRowHeight;
-        int day = 1 + ((int) ((x - padding) * mNumDays / (mWidth - padding - mPadding)) - findDayOffset()) + yDay * mNumDays;
-
-        if (mMonth > 11 || mMonth < 0 || CalendarUtils.getDaysInMonth(mMonth, mYear) < day || day < 1)
-            return null;
-
-        DatePickAdapter.CalendarDay calendar = new DatePickAdapter.CalendarDay(mYear, mMonth, day);
-        return calendar;
-    }
-
-    /**
-     * 初始化一些paint
-     */
-    protected void initView() {
-        // 头部年份和月份的字体paint
-        mYearMonthPaint = new Paint();
-        mYearMonthPaint.setAntiAlias(true);
-        mYearMonthPaint.setTextSize(YEAR_MONTH_TEXT_SIZE);
-        mYearMonthPaint.setColor(mYearMonthTextColor);
-        mYearMonthPaint.setTextAlign(Align.CENTER);
-        mYearMonthPaint.setStyle(Style.FILL);
-
-        // 头部星期几字体paint
-        mWeekTextPaint = new Paint();
-        mWeekTextPaint.setAntiAlias(true);
-        mWeekTextPaint.setTextSize(WEEK_TEXT_SIZE);
-        mWeekTextPaint.setColor(mWeekTextColor);
-        mWeekTextPaint.setStyle(Style.FILL);
-        mWeekTextPaint.setTextAlign(Align.CENTER);
-        mWeekTextPaint.setFakeBoldText(true);
-
-        // 被选中的日期背景paint
-        mSelectedDayBgPaint = new Paint();
-        mSelectedDayBgPaint.setFakeBoldText(true);
-        mSelectedDayBgPaint.setAntiAlias(true);
-        mSelectedDayBgPaint.setColor(mSelectedDaysBgColor);
-        mSelectedDayBgPaint.setTextAlign(Align.CENTER);
-        mSelectedDayBgPaint.setStyle(Style.FILL);
-
-        //选中之间的背景
-        mSelectedBetweenBgPaint = new Paint();
-        mSelectedBetweenBgPaint.setFakeBoldText(true);
-        mSelectedBetweenBgPaint.setAntiAlias(true);
-        mSelectedBetweenBgPaint.setColor(mSelectedDaysBgColor);
-        mSelectedBetweenBgPaint.setTextAlign(Align.CENTER);
-        mSelectedBetweenBgPaint.setStyle(Style.FILL);
-        mSelectedBetweenBgPaint.setAlpha(80);
-
-        // 日期字体paint
-        mDayTextPaint = new Paint();
-        mDayTextPaint.setAntiAlias(true);
-        mDayTextPaint.setColor(mDayTextColor);
-        mDayTextPaint.setTextSize(MINI_DAY_NUMBER_TEXT_SIZE);
-        mDayTextPaint.setStyle(Style.FILL);
-        mDayTextPaint.setTextAlign(Align.CENTER);
-        mDayTextPaint.setFakeBoldText(false);
-
-        //开始结束的字体
-        mTagPaint = new Paint();
-        mTagPaint.setAntiAlias(true);
-        mTagPaint.setColor(mSelectedDayTextColor);
-        mTagPaint.setTextSize(TAG_TEXT_SIZE);
-        mTagPaint.setStyle(Style.FILL);
-        mTagPaint.setTextAlign(Align.CENTER);
-        mTagPaint.setFakeBoldText(false);
+        return DatePickAdapter.newCalendarDay(findEpochDay(x, y));
+    }
+
+    /**
+     * 根据View中的坐标获取对应的日期，不创建对象，拖动时每次移动都会调用
+     *
+     * @param x
+     * @param y 只绘制一行时也是相对这个View的坐标
+     * @return 不在任何日期上时返回NO_DAY
+     */
+    int getEpochDayFromLocation(float x, float y) {
+        if (mWindowRow == ROW_HEADER) {
+            return CalendarUtils.NO_DAY;
+        }
+        // 只绘制一行时换算成整个月中的坐标
+        return findEpochDay(x, y + getWindowOffsetY());
+    }
+
+    /**
+     * @param x
+     * @param y 整个月中的坐标
+     * @return 不在任何日期上时返回NO_DAY
+     */
+    private int findEpochDay(float x, float y) {
+        if (x < mPadding || x >= mWidth - mPadding || y < mMonthHeaderSize || mMonthLayout == null) {
+            return CalendarUtils.NO_DAY;
+        }
+        int column = (int) ((x - mPadding) * mColumnScale);
+        int row = (int) (y - mMonthHeaderSize) / mRowHeight;
+        int day = 1 + row * mNumDays + column - findDayOffset();
+        if (day < 1 || day > mNumCells) {
+            return CalendarUtils.NO_DAY;
+        }
+        return mFirstEpochDay + day - 1;
+    }
+
+    /**
+     * 当前显示的开始日期，拖动选择时是拖动中的状态
+     *
+     * @return 没有选择时返回NO_DAY
+     */
+    int getSelectedStartEpochDay() {
+        return mStartEpochDay;
+    }
+
+    /**
+     * @return 没有结束日期时返回NO_DAY
+     */
+    int getSelectedEndEpochDay() {
+        return mEndEpochDay;
+    }
+
+    /**
+     * 这一天是否能被操作（今天以前的日期默认不能操作）
+     *
+     * @param epochDay
+     * @return
+     */
+    boolean isDayEnabled(int epochDay) {
+        return isPrevDayEnabled || epochDay >= mTodayEpochDay;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        PickerMetrics metrics = mMetrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        drawContent(canvas);
+        if (metrics != null) {
+            metrics.getDraw().record(System.nanoTime() - start);
+        }
+    }
+
+    private void drawContent(Canvas canvas) {
+        if (mWindowRow == ROW_HEADER) {
+            drawMonthTitle(canvas);
+            return;
+        }
+        if (mWindowRow >= 0) {
+            // 只绘制一行，平移后坐标和整个月相同
+            int firstDay = Math.max(mWindowRow * mNumDays - findDayOffset() + 1, 1);
+            int lastDay = Math.min((mWindowRow + 1) * mNumDays - findDayOffset(), mNumCells);
+            canvas.save();
+            canvas.translate(0, -getWindowOffsetY());
+            drawMonthCell(canvas, firstDay, lastDay);
+            canvas.restore();
+            return;
+        }
+        // 位图在绑定时生成，绘制时不创建位图，没有缓存时这一帧直接绘制
+        if (canUseRenderCache()) {
+            Bitmap bitmap = mRenderCache.get(mYear * 12 + mMonth, mWidth, mTheme.themeKey, mRenderVersion,
+                    mWeekStart, mTodayEpochDay);
+            if (bitmap != null) {
+                canvas.drawBitmap(bitmap, 0, 0, null);
+                return;
+            }
+        }
+        drawMonth(canvas);
+    }
+
+    /**
+     * 本月没有选中的日期时，绘制结果只由月份决定，可以使用缓存的位图
+     * 超过缓存上限的位图放不进缓存，每次都创建只会更慢，直接绘制
+     *
+     * @return
+     */
+    private boolean canUseRenderCache() {
+        return mRenderCache != null && mWidth > 0 && mWindowRow == ROW_ALL
+                && mRenderCache.fits(mWidth, mRowHeight * mNumRows + mMonthHeaderSize) && !hasSelectionInMonth();
+    }
+
+    /**
+     * 绑定时把本月绘制到缓存的位图，GapWorker预取的月份在空闲时间完成，显示时只需要绘制位图
+     * 还没有测量过宽度的View不处理，显示时直接绘制
+     */
+    private void warmRenderCache() {
+        if (!canUseRenderCache()) {
+            return;
+        }
+        int monthIndex = mYear * 12 + mMonth;
+        if (mRenderCache.contains(monthIndex, mWidth, mTheme.themeKey, mRenderVersion, mWeekStart, mTodayEpochDay)) {
+            return;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(mWidth, mRowHeight * mNumRows + mMonthHeaderSize, Bitmap.Config.ARGB_8888);
+        drawMonth(mRenderCache.getCanvas(bitmap));
+        mRenderCache.releaseCanvas();
+        mRenderCache.put(monthIndex, mWidth, mTheme.themeKey, mRenderVersion, mWeekStart, mTodayEpochDay, bitmap);
+    }
+
+    private void drawMonth(Canvas canvas) {
         drawMonthTitle(canvas);
         drawMonthCell(canvas);
     }
 
+    /**
+     * 选择的日期范围和本月是否有交集
+     *
+     * @return
+     */
+    private boolean hasSelectionInMonth() {
+        if (mSelectedIntervals != null && mSelectedIntervals.intersects(mFirstEpochDay, mFirstEpochDay + mNumCells - 1)) {
+            return true;
+        }
+        return mSpanFirstDay <= mSpanLastDay;
+    }
+
+    /**
+     * 把选择的日期换算成本月内的范围，开始或结束日期变化后调用
+     */
+    private void resolveSelectionSpan() {
+        mSpanFirstDay = 1;
+        mSpanLastDay = 0;
+        mSpanStartDay = -1;
+        mSpanEndDay = -1;
+        mSpanSingleDay = false;
+        if (mStartEpochDay == CalendarUtils.NO_DAY || mMonthLayout == null) {
+            return;
+        }
+        int last = Math.max(mStartEpochDay, mEndEpochDay);
+        mSpanFirstDay = Math.max(mStartEpochDay - mFirstEpochDay + 1, 1);
+        mSpanLastDay = Math.min(last - mFirstEpochDay + 1, mNumCells);
+        mSpanStartDay = mMonthLayout.dayOfMonth(mStartEpochDay);
+        mSpanSingleDay = mStartEpochDay == mEndEpochDay;
+        if (mEndEpochDay != CalendarUtils.NO_DAY && !mSpanSingleDay) {
+            mSpanEndDay = mMonthLayout.dayOfMonth(mEndEpochDay);
+        }
+    }
+
+    /**
+     * 设置每一天的附加数据
+     *
+     * @param decorationProvider 为null时不显示
+     */
+    void setDayDecorationProvider(DayDecorationProvider decorationProvider) {
+        mDecorationProvider = decorationProvider;
+    }
+
+    /**
+     * 设置不可选的日期
+     *
+     * @param blockedDays 为null时所有日期都可选
+     */
+    void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+    }
+
+    /**
+     * 设置月份位图缓存
+     *
+     * @param renderCache 为null时不使用缓存
+     */
+    void setRenderCache(MonthRenderCache renderCache) {
+        mRenderCache = renderCache;
+    }
+
+    /**
+     * 设置文字图集，日期和开始结束等标签直接从图集绘制，附加文字仍然直接绘制
+     *
+     * @param textAtlas 为null时直接绘制文字
+     */
+    void setTextAtlas(TextAtlas textAtlas) {
+        mTextAtlas = textAtlas;
+    }
+
+    /**
+     * @param metrics 为null时不统计
+     */
+    void setMetrics(PickerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * 只绘制月份的一部分，用于按周展开的列表
+     *
+     * @param windowRow ROW_ALL、ROW_HEADER或者第几行（从0开始）
+     */
+    void setWindowRow(int windowRow) {
+        if (mWindowRow != windowRow) {
+            mWindowRow = windowRow;
+            requestLayout();
+        }
+    }
+
+    /**
+     * 只绘制一行时，这一行在整个月中的纵向偏移
+     *
+     * @return
+     */
+    private int getWindowOffsetY() {
+        return mWindowRow >= 0 ? mMonthHeaderSize + mWindowRow * mRowHeight : 0;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        PickerMetrics metrics = mMetrics;
+        long start = metrics != null ? System.nanoTime() : 0;
         // 设置simpleMonthView的宽度和高度
-        setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), mRowHeight * mNumRows + MONTH_HEADER_SIZE);
+        int height;
+        if (mWindowRow == ROW_HEADER) {
+            height = mMonthHeaderSize;
+        } else if (mWindowRow >= 0) {
+            height = mRowHeight;
+        } else {
+            height = mRowHeight * mNumRows + mMonthHeaderSize;
+        }
+        setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), height);
+        if (metrics != null) {
+            metrics.getMeasure().record(System.nanoTime() - start);
+        }
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         mWidth = w;
         mRowWidth = mWidth / mNumDays;
+        int contentWidth = mWidth - 2 * mPadding;
+        mColumnScale = contentWidth > 0 ? (float) mNumDays / contentWidth : 0;
     }
 
     public boolean onTouchEvent(MotionEvent event) {
-        if (event.getAction() == MotionEvent.ACTION_UP) {
-            DatePickAdapter.CalendarDay calendarDay = getDayFromLocation(event.getX(), event.getY());
-            if (calendarDay == null) {
-                return true;
-            }
-            onDayClick(calendarDay);
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mDownX = event.getX();
+                mDownY = event.getY();
+                if (mOnDayDragListener != null && mWindowRow != ROW_HEADER) {
+                    postDelayed(mLongPressRunnable, ViewConfiguration.getLongPressTimeout());
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (mDragging) {
+                    mOnDayDragListener.onDayDragMove(this, event.getX(), event.getY());
+                } else if (Math.abs(event.getX() - mDownX) > mTouchSlop || Math.abs(event.getY() - mDownY) > mTouchSlop) {
+                    // 移动后不再是长按，交给列表滚动
+                    removeCallbacks(mLongPressRunnable);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                removeCallbacks(mLongPressRunnable);
+                if (mDragging) {
+                    stopDrag(false);
+                    break;
+                }
+                int epochDay = getEpochDayFromLocation(event.getX(), event.getY());
+                if (epochDay != CalendarUtils.NO_DAY) {
+                    onDayClick(DatePickAdapter.newCalendarDay(epochDay));
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                removeCallbacks(mLongPressRunnable);
+                if (mDragging) {
+                    stopDrag(true);
+                }
+                break;
         }
         return true;
     }
 
+    /**
+     * 长按到时间后开始拖动选择，之后的事件不再让列表拦截
+     */
+    private void startDrag() {
+        int epochDay = getEpochDayFromLocation(mDownX, mDownY);
+        if (epochDay == CalendarUtils.NO_DAY || !isDayEnabled(epochDay)
+                || mOnDayDragListener == null || !mOnDayDragListener.onDayDragStart(this, epochDay)) {
+            return;
+        }
+        mDragging = true;
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(true);
+        }
+        performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+    }
+
+    private void stopDrag(boolean canceled) {
+        mDragging = false;
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(false);
+        }
+        if (mOnDayDragListener != null) {
+            mOnDayDragListener.onDayDragEnd(this, canceled);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(mLongPressRunnable);
+        if (mDragging) {
+            stopDrag(true);
+        }
+    }
+
     /**
      * 设置传递进来的参数
      *
      * @param params
+     * @deprecated 每次绑定都要创建HashMap并装箱，使用{@link #setMonthParams(MonthParams)}
      */
+    @Deprecated
     public void setMonthParams(HashMap<String, Object> params) {
         if (!params.containsKey(VIEW_PARAMS_MONTH) && !params.containsKey(VIEW_PARAMS_YEAR)) {
             throw new InvalidParameterException("You must specify month and year for this view");
         }
-        setTag(params);
-
-        if (params.containsKey(VIEW_PARAMS_SELECTED_BEGIN_DATE)) {
-            mStartDate = (DatePickAdapter.CalendarDay) params.get(VIEW_PARAMS_SELECTED_BEGIN_DATE);
-        }
-        if (params.containsKey(VIEW_PARAMS_SELECTED_LAST_DATE)) {
-            mEndDate = (DatePickAdapter.CalendarDay) params.get(VIEW_PARAMS_SELECTED_LAST_DATE);
+        if (mLegacyParams == null) {
+            mLegacyParams = new MonthParams();
         }
+        MonthParams monthParams = mLegacyParams;
+        monthParams.selectedBegin = params.containsKey(VIEW_PARAMS_SELECTED_BEGIN_DATE)
+                ? (DatePickAdapter.CalendarDay) params.get(VIEW_PARAMS_SELECTED_BEGIN_DATE) : mStartDate;
+        monthParams.selectedLast = params.containsKey(VIEW_PARAMS_SELECTED_LAST_DATE)
+                ? (DatePickAdapter.CalendarDay) params.get(VIEW_PARAMS_SELECTED_LAST_DATE) : mEndDate;
+        monthParams.month = (int) params.get(VIEW_PARAMS_MONTH);
+        monthParams.year = (int) params.get(VIEW_PARAMS_YEAR);
+        monthParams.weekStart = params.containsKey(VIEW_PARAMS_WEEK_START) ? (int) params.get(VIEW_PARAMS_WEEK_START) : 0;
+        setMonthParams(monthParams);
+    }
 
-        mMonth = (int) params.get(VIEW_PARAMS_MONTH);
-        mYear = (int) params.get(VIEW_PARAMS_YEAR);
+    /**
+     * 设置传递进来的参数
+     *
+     * @param params 由调用方持有并复用，这里只读取不保存
+     */
+    public void setMonthParams(MonthParams params) {
+        mStartDate = params.selectedBegin;
+        mEndDate = params.selectedLast;
+        mSelectedIntervals = params.selectedIntervals;
+        mMonth = params.month;
+        mYear = params.year;
+        mRenderVersion = params.renderVersion;
+
+        mWeekStart = params.weekStart > 0 ? params.weekStart : mDefaultWeekStart;
+        mTodayEpochDay = CalendarUtils.getTodayEpochDay();
+
+        mMonthLayout = CalendarUtils.getMonthLayout(mYear, mMonth, mWeekStart);
+        mFirstEpochDay = mMonthLayout.firstEpochDay;
+        mNumCells = mMonthLayout.daysInMonth;
+        mNumRows = mMonthLayout.numRows;
+
+        mStartEpochDay = mStartDate != null ? mStartDate.getEpochDay() : CalendarUtils.NO_DAY;
+        mEndEpochDay = mEndDate != null ? mEndDate.getEpochDay() : CalendarUtils.NO_DAY;
+        resolveSelectionSpan();
+
+        mToday = mMonthLayout.dayOfMonth(mTodayEpochDay);
+        mHasToday = mToday != -1;
+
+        mMonthTitle = CalendarLabels.get().getMonthTitle(getContext(), mYear, mMonth);
+        warmRenderCache();
+    }
 
-        mHasToday = false;
-        mToday = -1;
+    /**
+     * 只更新选择的日期，只重绘本月中选择状态可能变化的行
+     *
+     * @param selectedBegin
+     * @param selectedLast
+     * @param selectedIntervals 多选时选中的日期，为null时是范围选择
+     */
+    public void setSelectedDays(DatePickAdapter.CalendarDay selectedBegin, DatePickAdapter.CalendarDay selectedLast,
+                                DayIntervals selectedIntervals) {
+        if (selectedIntervals != null) {
+            // 集合的内容已经变化，无法知道原来的状态，只有受影响的月份才会收到通知，重绘整个月
+            mSelectedIntervals = selectedIntervals;
+            mStartDate = selectedBegin;
+            mEndDate = selectedLast;
+            mStartEpochDay = selectedBegin != null ? selectedBegin.getEpochDay() : CalendarUtils.NO_DAY;
+            mEndEpochDay = CalendarUtils.NO_DAY;
+            resolveSelectionSpan();
+            invalidate();
+            return;
+        }
+        mSelectedIntervals = null;
+        setSelectedDays(selectedBegin, selectedLast);
+    }
 
-        mCalendar.set(Calendar.MONTH, mMonth);
-        mCalendar.set(Calendar.YEAR, mYear);
-        mCalendar.set(Calendar.DAY_OF_MONTH, 1);
-        mDayOfWeekStart = mCalendar.get(Calendar.DAY_OF_WEEK);
+    /**
+     * 只更新选择的日期，只重绘本月中选择状态可能变化的行
+     *
+     * @param selectedBegin
+     * @param selectedLast
+     */
+    public void setSelectedDays(DatePickAdapter.CalendarDay selectedBegin, DatePickAdapter.CalendarDay selectedLast) {
+        mStartDate = selectedBegin;
+        mEndDate = selectedLast;
+        setSelectedEpochDays(selectedBegin != null ? selectedBegin.getEpochDay() : CalendarUtils.NO_DAY,
+                selectedLast != null ? selectedLast.getEpochDay() : CalendarUtils.NO_DAY);
+    }
 
-        if (params.containsKey(VIEW_PARAMS_WEEK_START)) {
-            mWeekStart = (int) params.get(VIEW_PARAMS_WEEK_START);
-        } else {
-            mWeekStart = mCalendar.getFirstDayOfWeek();
+    /**
+     * 按epochDay更新范围选择，不创建对象，拖动选择时每次移动到新的日期都会调用
+     * 只有开始、结束日期移动经过的日期状态会变化，中间不变的部分不重绘
+     *
+     * @param startEpochDay 没有选择时为NO_DAY
+     * @param endEpochDay   没有结束日期时为NO_DAY
+     */
+    void setSelectedEpochDays(int startEpochDay, int endEpochDay) {
+        if (startEpochDay == mStartEpochDay && endEpochDay == mEndEpochDay) {
+            return;
         }
-
-        mNumCells = CalendarUtils.getDaysInMonth(mMonth, mYear);
-        for (int i = 0; i < mNumCells; i++) {
-            final int day = i + 1;
-            if (sameDay(day, today)) {
-                mHasToday = true;
-                mToday = day;
+        int oldStart = mStartEpochDay;
+        int oldEnd = mEndEpochDay != CalendarUtils.NO_DAY ? mEndEpochDay : mStartEpochDay;
+        int newEnd = endEpochDay != CalendarUtils.NO_DAY ? endEpochDay : startEpochDay;
+        mStartEpochDay = startEpochDay;
+        mEndEpochDay = endEpochDay;
+        resolveSelectionSpan();
+
+        if (oldStart == CalendarUtils.NO_DAY || startEpochDay == CalendarUtils.NO_DAY) {
+            // 选择出现或消失，整段都变化
+            if (oldStart != CalendarUtils.NO_DAY) {
+                invalidateDays(oldStart, Math.max(oldStart, oldEnd));
             }
+            if (startEpochDay != CalendarUtils.NO_DAY) {
+                invalidateDays(startEpochDay, Math.max(startEpochDay, newEnd));
+            }
+            return;
         }
+        // 开始日期从oldStart移到startEpochDay，结束日期从oldEnd移到newEnd，两端之间的日期都要重绘
+        invalidateDays(Math.min(oldStart, startEpochDay), Math.max(oldStart, startEpochDay));
+        invalidateDays(Math.min(oldEnd, newEnd), Math.max(oldEnd, newEnd));
+    }
 
-        mNumRows = calculateNumRows();
+    /**
+     * 重绘本月中这些日期所在的行
+     *
+     * @param firstEpochDay
+     * @param lastEpochDay
+     */
+    private void invalidateDays(int firstEpochDay, int lastEpochDay) {
+        if (mMonthLayout == null) {
+            return;
+        }
+        int firstDay = Math.max(firstEpochDay - mFirstEpochDay + 1, 1);
+        int lastDay = Math.min(lastEpochDay - mFirstEpochDay + 1, mNumCells);
+        if (firstDay > lastDay) {
+            return;
+        }
+        int firstRow = (findDayOffset() + firstDay - 1) / mNumDays;
+        int lastRow = (findDayOffset() + lastDay - 1) / mNumDays;
+        if (mWindowRow != ROW_ALL) {
+            if (mWindowRow >= firstRow && mWindowRow <= lastRow) {
+                invalidate();
+            }
+            return;
+        }
+        invalidate(0, mMonthHeaderSize + firstRow * mRowHeight, mWidth, mMonthHeaderSize + (lastRow + 1) * mRowHeight);
     }
 
     public void setOnDayClickListener(OnDayClickListener onDayClickListener) {
@@ -436,6 +794,50 @@ class DateView extends View {
         void onDayClick(DateView simpleMonthView, DatePickAdapter.CalendarDay calendarDay);
     }
 
+    void setOnDayDragListener(OnDayDragListener onDayDragListener) {
+        mOnDayDragListener = onDayDragListener;
+    }
+
+    /**
+     * 长按日期后拖动选择一段日期
+     */
+    interface OnDayDragListener {
+        /**
+         * @param view     长按的View
+         * @param epochDay 长按的日期
+         * @return 是否开始拖动，返回false时按普通点击处理
+         */
+        boolean onDayDragStart(DateView view, int epochDay);
+
+        /**
+         * 拖动中手指移动，可能已经移到了其他月份上，每一帧都会调用，不能创建对象
+         *
+         * @param view 长按的View，坐标相对这个View
+         * @param x
+         * @param y
+         */
+        void onDayDragMove(DateView view, float x, float y);
+
+        /**
+         * @param view
+         * @param canceled 被取消（例如View被移除）时为true，这时应该恢复原来的选择
+         */
+        void onDayDragEnd(DateView view, boolean canceled);
+    }
+
+    /**
+     * 绑定一个月需要的参数，每个ViewHolder持有一个并在每次绑定时复用
+     */
+    public static class MonthParams {
+        public int year;                                        // 年份
+        public int month;                                       // 月份，0~11
+        public int weekStart;                                   // 一周的第一天，<=0时使用系统默认
+        public DatePickAdapter.CalendarDay selectedBegin;       // 开始日期
+        public DatePickAdapter.CalendarDay selectedLast;        // 结束日期
+        public DayIntervals selectedIntervals;                  // 多选时选中的日期，为null时是范围选择
+        public int renderVersion;                               // 影响绘制结果的数据版本，变化后缓存的位图失效
+    }
+
     /**
      * 绘制cell
      *
@@ -444,21 +846,70 @@ class DateView extends View {
      * @param y
      */
     private void drawDayBg(Canvas canvas, int x, int y, Paint paint) {
-        Rect rect = new Rect(x - mRowWidth / 2, y - mRowHeight / 2, x + mRowWidth / 2, y + mRowHeight / 2);
-        canvas.drawRect(rect, paint);
+        mDayRect.set(x - mRowWidth / 2, y - mRowHeight / 2, x + mRowWidth / 2, y + mRowHeight / 2);
+        canvas.drawRect(mDayRect, paint);
     }
 
     /**
-     * 在使用drawText方法时文字不能根据y坐标居中，所以重新计算y坐标
+     * 绘制开始、结束等选中日期的背景，设置了圆角时绘制圆角矩形
      *
-     * @param paint
+     * @param canvas
+     * @param x
      * @param y
-     * @return
      */
-    private float getTextYCenter(Paint paint, int y) {
-        Paint.FontMetrics fontMetrics = paint.getFontMetrics();
-        float fontTotalHeight = fontMetrics.bottom - fontMetrics.top;
-        float offY = fontTotalHeight / 2 - fontMetrics.bottom;
-        return y + offY;
+    private void drawSelectedDayBg(Canvas canvas, int x, int y) {
+        int radius = mTheme.selectedDayRadius;
+        if (radius <= 0) {
+            drawDayBg(canvas, x, y, mTheme.selectedDayBgPaint);
+            return;
+        }
+        mRoundRect.set(x - mRowWidth / 2, y - mRowHeight / 2, x + mRowWidth / 2, y + mRowHeight / 2);
+        canvas.drawRoundRect(mRoundRect, radius, radius, mTheme.selectedDayBgPaint);
+    }
+
+    /**
+     * 范围选择时，开始和结束之间的背景每行只绘制一个矩形，绘制次数只和行数有关
+     * 没有圆角时只覆盖中间的日期；有圆角时从开始日期的中心连到结束日期的中心，两端由圆角的背景盖住
+     *
+     * @param canvas
+     * @param fromDay 只绘制[fromDay, toDay]中的部分
+     * @param toDay
+     */
+    private void drawRangeBand(Canvas canvas, int fromDay, int toDay) {
+        if (mSpanFirstDay > mSpanLastDay || mEndEpochDay == CalendarUtils.NO_DAY || mSpanSingleDay) {
+            return;
+        }
+        boolean rounded = mTheme.selectedDayRadius > 0;
+        int firstDay = mSpanFirstDay;
+        int lastDay = mSpanLastDay;
+        if (!rounded && firstDay == mSpanStartDay) {
+            firstDay++;
+        }
+        if (!rounded && lastDay == mSpanEndDay) {
+            lastDay--;
+        }
+        firstDay = Math.max(firstDay, fromDay);
+        lastDay = Math.min(lastDay, toDay);
+
+        int paddingDay = (mWidth - 2 * mPadding) / (2 * mNumDays);
+        int offset = findDayOffset();
+        int day = firstDay;
+        while (day <= lastDay) {
+            int cellIndex = offset + day - 1;
+            int column = cellIndex % mNumDays;
+            int rowLastDay = Math.min(lastDay, day + mNumDays - 1 - column);
+            int lastColumn = column + rowLastDay - day;
+            int y = mMonthHeaderSize + (cellIndex / mNumDays) * mRowHeight + mRowHeight / 2;
+
+            int left = paddingDay * (1 + column * 2) + mPadding;
+            int right = paddingDay * (1 + lastColumn * 2) + mPadding;
+            // 开始和结束日期只覆盖靠近中间的一半
+            left -= day == mSpanStartDay ? 0 : mRowWidth / 2;
+            right += rowLastDay == mSpanEndDay ? 0 : mRowWidth / 2;
+            mDayRect.set(left, y - mRowHeight / 2, right, y + mRowHeight / 2);
+            canvas.drawRect(mDayRect, mTheme.selectedBetweenBgPaint);
+
+            day = rowLastDay + 1;
+        }
     }
-}
\ No newline at end of file
+}
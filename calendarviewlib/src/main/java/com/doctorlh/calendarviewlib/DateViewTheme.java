@@ -0,0 +1,122 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Paint.Style;
+
+/**
+ * 日历的主题，每个DatePikerView只解析一次TypedArray，所有DateView共用
+ * 创建后不再修改：每种颜色状态都有单独的画笔，绘制时只选择画笔，不调用setColor
+ */
+final class DateViewTheme {
+    final int dayTextSize;                          // 日期字体大小
+    final int tagTextSize;                          // 标签字体大小
+    final int yearMonthTextSize;                    // 头部年份月份的字体大小
+    final int weekTextSize;                         // 头部星期几的字体大小
+    final int monthHeaderSize;                      // 头部的高度（包括年份月份，星期几）
+    final int rowHeight;                            // 行高
+    final int selectedDayRadius;                    // 开始结束日期背景的圆角半径，0为方形
+    final boolean prevDayEnabled;                   // 今天以前的日期是否能被操作
+
+    final int yearMonthTextColor;                   // 头部年份和月份字体颜色
+    final int weekTextColor;                        // 头部星期几字体颜色
+    final int dayTextColor;                         // 日期字体颜色
+    final int selectedDayTextColor;                 // 被选中的日期字体颜色
+    final int selectedDaysBgColor;                  // 选中的日期背景颜色
+    final int disabledDayTextColor;                 // 不可用的日期字体颜色
+    final int decorationTextColor;                  // 附加文字的颜色
+
+    final Paint yearMonthPaint;                     // 头部年份月份
+    final Paint dayTextPaint;                       // 普通的日期
+    final Paint selectedDayTextPaint;               // 选中的日期
+    final Paint disabledDayTextPaint;               // 不可用的日期
+    final Paint tagPaint;                           // 开始、结束等标签
+    final Paint decorationPaint;                    // 每一天的附加文字
+    final Paint selectedDayBgPaint;                 // 选中的日期背景
+    final Paint selectedBetweenBgPaint;             // 开始结束之间的背景
+
+    final float dayTextOffsetY;                     // 日期文字基线相对cell中心的偏移
+    final int themeKey;                             // 影响绘制结果的所有属性的hash，作为位图缓存的key
+
+    DateViewTheme(TypedArray typedArray) {
+        this(typedArray, 1f);
+    }
+
+    /**
+     * @param typedArray
+     * @param textScale  所有字号的缩放比例，用于模拟系统的大字体设置
+     */
+    DateViewTheme(TypedArray typedArray, float textScale) {
+        yearMonthTextColor = typedArray.getColor(R.styleable.DatePikerView_colorYearMonthText, Color.BLACK);
+        weekTextColor = typedArray.getColor(R.styleable.DatePikerView_colorWeekText, Color.BLACK);
+        dayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorNormalDayText, Color.BLACK);
+        disabledDayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorDisabledDayText, Color.LTGRAY);
+        decorationTextColor = typedArray.getColor(R.styleable.DatePikerView_colorDecorationText, dayTextColor);
+        selectedDaysBgColor = typedArray.getColor(R.styleable.DatePikerView_colorSelectedDayBackground, Color.YELLOW);
+        selectedDayTextColor = typedArray.getColor(R.styleable.DatePikerView_colorSelectedDayText, Color.WHITE);
+
+        dayTextSize = Math.round(typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeDay, 28) * textScale);
+        tagTextSize = Math.round(typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeTag, 20) * textScale);
+        yearMonthTextSize = Math.round(typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeYearMonth, 32) * textScale);
+        weekTextSize = Math.round(typedArray.getDimensionPixelSize(R.styleable.DatePikerView_textSizeWeek, 20) * textScale);
+        monthHeaderSize = typedArray.getDimensionPixelOffset(R.styleable.DatePikerView_headerMonthHeight, 100);
+        rowHeight = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_rowHeight, 110);
+        selectedDayRadius = typedArray.getDimensionPixelSize(R.styleable.DatePikerView_selectedDayRadius, 0);
+        prevDayEnabled = typedArray.getBoolean(R.styleable.DatePikerView_enablePreviousDay, false);
+
+        // 头部年份和月份的字体paint
+        yearMonthPaint = newTextPaint(yearMonthTextColor, yearMonthTextSize);
+
+        // 日期字体paint，每种颜色一个
+        dayTextPaint = newTextPaint(dayTextColor, dayTextSize);
+        selectedDayTextPaint = newTextPaint(selectedDayTextColor, dayTextSize);
+        disabledDayTextPaint = newTextPaint(disabledDayTextColor, dayTextSize);
+
+        // 开始结束的字体
+        tagPaint = newTextPaint(selectedDayTextColor, tagTextSize);
+
+        // 附加文字的画笔
+        decorationPaint = newTextPaint(decorationTextColor, tagTextSize);
+
+        // 被选中的日期背景paint
+        selectedDayBgPaint = new Paint();
+        selectedDayBgPaint.setAntiAlias(true);
+        selectedDayBgPaint.setColor(selectedDaysBgColor);
+        selectedDayBgPaint.setStyle(Style.FILL);
+
+        // 选中之间的背景
+        selectedBetweenBgPaint = new Paint(selectedDayBgPaint);
+        selectedBetweenBgPaint.setAlpha(80);
+
+        // 字号不再变化，基线偏移只算一次
+        Paint.FontMetrics fontMetrics = dayTextPaint.getFontMetrics();
+        dayTextOffsetY = (fontMetrics.bottom - fontMetrics.top) / 2 - fontMetrics.bottom;
+
+        int key = yearMonthTextColor;
+        key = 31 * key + weekTextColor;
+        key = 31 * key + dayTextColor;
+        key = 31 * key + selectedDayTextColor;
+        key = 31 * key + selectedDaysBgColor;
+        key = 31 * key + disabledDayTextColor;
+        key = 31 * key + decorationTextColor;
+        key = 31 * key + dayTextSize;
+        key = 31 * key + tagTextSize;
+        key = 31 * key + yearMonthTextSize;
+        key = 31 * key + monthHeaderSize;
+        key = 31 * key + rowHeight;
+        key = 31 * key + selectedDayRadius;
+        themeKey = 31 * key + (prevDayEnabled ? 1 : 0);
+    }
+
+    private static Paint newTextPaint(int color, int textSize) {
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setColor(color);
+        paint.setTextSize(textSize);
+        paint.setStyle(Style.FILL);
+        paint.setTextAlign(Align.CENTER);
+        return paint;
+    }
+}
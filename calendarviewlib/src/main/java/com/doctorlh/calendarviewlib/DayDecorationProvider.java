@@ -0,0 +1,23 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 每一天的附加数据（价格、是否可订等），绘制每个日期时按天数读取
+ * 绘制时每个cell都会调用，实现中不要分配对象
+ */
+public interface DayDecorationProvider {
+    int STATE_NONE = 0;             // 没有状态
+    int STATE_AVAILABLE = 1;        // 可用
+    int STATE_UNAVAILABLE = 2;      // 不可用（如满房），日期置灰
+
+    /**
+     * @param epochDay 从1970-01-01开始的天数
+     * @return STATE_NONE、STATE_AVAILABLE或STATE_UNAVAILABLE
+     */
+    int getState(int epochDay);
+
+    /**
+     * @param epochDay 从1970-01-01开始的天数
+     * @return 显示在日期下方的文字（如价格），null表示不显示
+     */
+    String getLabel(int epochDay);
+}
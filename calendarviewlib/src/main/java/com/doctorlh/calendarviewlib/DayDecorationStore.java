@@ -0,0 +1,125 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 用数组按天数保存每一天附加数据的默认实现，查询时只做下标运算
+ */
+public class DayDecorationStore implements DayDecorationProvider {
+    private static final int MIN_CAPACITY = 64;
+
+    private int mBaseEpochDay;                      // 数组下标0对应的天数
+    private byte[] mStates = new byte[0];
+    private String[] mLabels = new String[0];
+
+    @Override
+    public int getState(int epochDay) {
+        int index = epochDay - mBaseEpochDay;
+        return index >= 0 && index < mStates.length ? mStates[index] : STATE_NONE;
+    }
+
+    @Override
+    public String getLabel(int epochDay) {
+        int index = epochDay - mBaseEpochDay;
+        return index >= 0 && index < mLabels.length ? mLabels[index] : null;
+    }
+
+    /**
+     * 设置某一天的数据
+     *
+     * @param epochDay 从1970-01-01开始的天数
+     * @param label    显示的文字，null表示不显示
+     * @param state    STATE_NONE、STATE_AVAILABLE或STATE_UNAVAILABLE
+     */
+    public void put(int epochDay, String label, int state) {
+        ensureRange(epochDay, epochDay);
+        int index = epochDay - mBaseEpochDay;
+        mLabels[index] = label;
+        mStates[index] = (byte) state;
+    }
+
+    /**
+     * 批量设置从startEpochDay开始的连续若干天的数据
+     *
+     * @param startEpochDay 第一天
+     * @param labels        每一天显示的文字，为null时不修改文字
+     * @param states        每一天的状态，为null时不修改状态
+     */
+    public void putAll(int startEpochDay, String[] labels, byte[] states) {
+        if (labels != null && states != null && labels.length != states.length) {
+            throw new IllegalArgumentException("文字和状态的数量必须相同");
+        }
+        int count = labels != null ? labels.length : (states != null ? states.length : 0);
+        if (count == 0) {
+            return;
+        }
+        ensureRange(startEpochDay, startEpochDay + count - 1);
+        int index = startEpochDay - mBaseEpochDay;
+        if (labels != null) {
+            System.arraycopy(labels, 0, mLabels, index, count);
+        }
+        if (states != null) {
+            System.arraycopy(states, 0, mStates, index, count);
+        }
+    }
+
+    /**
+     * 批量设置从startEpochDay开始的连续若干天的价格，文字在这里一次生成，绘制时不再格式化
+     *
+     * @param startEpochDay 第一天
+     * @param prices        每一天的价格，小于0表示不显示
+     * @param prefix        价格前面的符号，如"¥"
+     */
+    public void putPrices(int startEpochDay, int[] prices, String prefix) {
+        if (prices.length == 0) {
+            return;
+        }
+        ensureRange(startEpochDay, startEpochDay + prices.length - 1);
+        int index = startEpochDay - mBaseEpochDay;
+        StringBuilder builder = new StringBuilder(16);
+        for (int i = 0; i < prices.length; i++) {
+            if (prices[i] < 0) {
+                mLabels[index + i] = null;
+                continue;
+            }
+            builder.setLength(0);
+            if (prefix != null) {
+                builder.append(prefix);
+            }
+            mLabels[index + i] = builder.append(prices[i]).toString();
+        }
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void clear() {
+        mBaseEpochDay = 0;
+        mStates = new byte[0];
+        mLabels = new String[0];
+    }
+
+    /**
+     * 保证数组覆盖[from, to]，不够时扩容，空间按倍数增长
+     */
+    private void ensureRange(int from, int to) {
+        int length = mStates.length;
+        if (length > 0 && from >= mBaseEpochDay && to < mBaseEpochDay + length) {
+            return;
+        }
+        int newBase = length > 0 ? Math.min(mBaseEpochDay, from) : from;
+        int newEnd = length > 0 ? Math.max(mBaseEpochDay + length - 1, to) : to;
+        int capacity = Math.max(Math.max(newEnd - newBase + 1, length * 2), MIN_CAPACITY);
+        // 向前扩展时把多出来的空间留在前面，向后扩展时留在后面
+        if (length > 0 && from < mBaseEpochDay) {
+            newBase = newEnd - capacity + 1;
+        }
+        byte[] states = new byte[capacity];
+        String[] labels = new String[capacity];
+        if (length > 0) {
+            System.arraycopy(mStates, 0, states, mBaseEpochDay - newBase, length);
+            System.arraycopy(mLabels, 0, labels, mBaseEpochDay - newBase, length);
+        }
+        mBaseEpochDay = newBase;
+        mStates = states;
+        mLabels = labels;
+    }
+}
@@ -0,0 +1,229 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * 月份位图缓存，按(月份, 宽度, 主题, 版本, 一周第一天, 今天)保存已经绘制好的月份，按最近使用淘汰
+ * 今天决定了哪些日期置灰，过了零点后原来的位图都不再命中
+ * 只在主线程使用
+ */
+public class MonthRenderCache implements ComponentCallbacks2 {
+    private static final int MAX_ENTRIES = 24;                  // 最多缓存几个月份
+    private static final int BYTES_PER_PIXEL = 4;               // 位图都是ARGB_8888
+
+    private final int[] mMonthIndexes = new int[MAX_ENTRIES];
+    private final int[] mWidths = new int[MAX_ENTRIES];
+    private final int[] mThemeKeys = new int[MAX_ENTRIES];
+    private final int[] mVersions = new int[MAX_ENTRIES];
+    private final int[] mWeekStarts = new int[MAX_ENTRIES];
+    private final int[] mTodays = new int[MAX_ENTRIES];
+    private final long[] mLastUsed = new long[MAX_ENTRIES];
+    private final Bitmap[] mBitmaps = new Bitmap[MAX_ENTRIES];
+    private int mSize;
+    private long mClock;
+
+    private final long mMaxBytes;                               // 内存上限
+    private long mBytes;                                        // 已占用的内存
+
+    private final Canvas mCanvas = new Canvas();                // 绘制到位图时复用
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    /**
+     * @param maxBytes 位图占用内存的上限（字节）
+     */
+    public MonthRenderCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("缓存的内存上限必须大于0");
+        }
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 获取缓存的月份位图
+     *
+     * @param todayEpochDay 绘制时今天对应的天数
+     * @return 没有缓存返回null
+     */
+    public Bitmap get(int monthIndex, int width, int themeKey, int version, int weekStart, int todayEpochDay) {
+        int index = indexOf(monthIndex, width, themeKey, version, weekStart, todayEpochDay);
+        if (index < 0) {
+            mMissCount++;
+            return null;
+        }
+        mLastUsed[index] = ++mClock;
+        mHitCount++;
+        return mBitmaps[index];
+    }
+
+    /**
+     * 是否已经缓存，不计入命中统计，也不更新使用顺序
+     *
+     * @return
+     */
+    boolean contains(int monthIndex, int width, int themeKey, int version, int weekStart, int todayEpochDay) {
+        return indexOf(monthIndex, width, themeKey, version, weekStart, todayEpochDay) >= 0;
+    }
+
+    private int indexOf(int monthIndex, int width, int themeKey, int version, int weekStart, int todayEpochDay) {
+        for (int i = 0; i < mSize; i++) {
+            if (mMonthIndexes[i] == monthIndex && mWidths[i] == width && mThemeKeys[i] == themeKey
+                    && mVersions[i] == version && mWeekStarts[i] == weekStart && mTodays[i] == todayEpochDay) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 缓存月份位图，超出上限时淘汰最久没有使用的
+     */
+    public void put(int monthIndex, int width, int themeKey, int version, int weekStart, int todayEpochDay, Bitmap bitmap) {
+        long bytes = bitmap.getByteCount();
+        if (bytes > mMaxBytes) {
+            return;
+        }
+        // 同一个月份旧版本、其他一周第一天或者以前的今天的位图不会再用到
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mMonthIndexes[i] == monthIndex && mWidths[i] == width && mThemeKeys[i] == themeKey) {
+                removeAt(i);
+            }
+        }
+        while (mSize > 0 && (mSize == MAX_ENTRIES || mBytes + bytes > mMaxBytes)) {
+            removeAt(findEldest());
+            mEvictionCount++;
+        }
+        mMonthIndexes[mSize] = monthIndex;
+        mWidths[mSize] = width;
+        mThemeKeys[mSize] = themeKey;
+        mVersions[mSize] = version;
+        mWeekStarts[mSize] = weekStart;
+        mTodays[mSize] = todayEpochDay;
+        mBitmaps[mSize] = bitmap;
+        mLastUsed[mSize] = ++mClock;
+        mSize++;
+        mBytes += bytes;
+    }
+
+    /**
+     * 这个大小的位图能否放进缓存，放不进时不应该创建位图
+     *
+     * @param width
+     * @param height
+     * @return
+     */
+    public boolean fits(int width, int height) {
+        return (long) width * height * BYTES_PER_PIXEL <= mMaxBytes;
+    }
+
+    /**
+     * 获取绘制到位图的Canvas，绘制完要调用{@link #releaseCanvas()}
+     *
+     * @param bitmap
+     * @return
+     */
+    Canvas getCanvas(Bitmap bitmap) {
+        mCanvas.setBitmap(bitmap);
+        return mCanvas;
+    }
+
+    /**
+     * 绘制完后不再引用位图，否则被淘汰的位图会一直被Canvas持有
+     */
+    void releaseCanvas() {
+        mCanvas.setBitmap(null);
+    }
+
+    /**
+     * 淘汰最久没有使用的位图，直到占用内存不超过maxBytes
+     *
+     * @param maxBytes
+     */
+    public void trimToSize(long maxBytes) {
+        while (mSize > 0 && mBytes > maxBytes) {
+            removeAt(findEldest());
+            mEvictionCount++;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void evictAll() {
+        trimToSize(-1);
+    }
+
+    private int findEldest() {
+        int eldest = 0;
+        for (int i = 1; i < mSize; i++) {
+            if (mLastUsed[i] < mLastUsed[eldest]) {
+                eldest = i;
+            }
+        }
+        return eldest;
+    }
+
+    /**
+     * 移除一项，用最后一项填补空位
+     * 位图可能还被硬件加速的绘制记录引用，所以不调用recycle，交给GC回收
+     *
+     * @param index
+     */
+    private void removeAt(int index) {
+        mBytes -= mBitmaps[index].getByteCount();
+        int last = mSize - 1;
+        mMonthIndexes[index] = mMonthIndexes[last];
+        mWidths[index] = mWidths[last];
+        mThemeKeys[index] = mThemeKeys[last];
+        mVersions[index] = mVersions[last];
+        mWeekStarts[index] = mWeekStarts[last];
+        mTodays[index] = mTodays[last];
+        mLastUsed[index] = mLastUsed[last];
+        mBitmaps[index] = mBitmaps[last];
+        mBitmaps[last] = null;
+        mSize = last;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(mMaxBytes / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public long getBytes() {
+        return mBytes;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public int getEvictionCount() {
+        return mEvictionCount;
+    }
+}
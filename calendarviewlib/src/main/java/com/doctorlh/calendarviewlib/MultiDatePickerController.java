@@ -0,0 +1,14 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 多选模式的回调，选中的日期变化时一次性回调所有选中的日期
+ */
+public interface MultiDatePickerController extends DatePickerController {
+
+    /**
+     * 选中的日期变化
+     *
+     * @param intervals 所有选中的日期，由日历持有，需要保存时复制一份
+     */
+    void onDayIntervalsSelected(DayIntervals intervals);
+}
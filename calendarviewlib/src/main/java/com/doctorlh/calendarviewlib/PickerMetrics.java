@@ -0,0 +1,176 @@
+package com.doctorlh.calendarviewlib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 日历的性能统计：绑定、绘制、测量的耗时，创建ViewHolder的次数，点击到回调的延迟
+ * 通过{@link DatePikerView#setMetrics(PickerMetrics)}开启，不设置时只多一次null判断
+ * 所有计数都是无锁的，可以在任意线程读取
+ */
+public class PickerMetrics {
+    private final Histogram mBind = new Histogram();
+    private final Histogram mDraw = new Histogram();
+    private final Histogram mMeasure = new Histogram();
+    private final Histogram mTapToCallback = new Histogram();
+    private final AtomicLong mViewHolderCreated = new AtomicLong();
+
+    /**
+     * DatePickAdapter.onBindViewHolder的耗时
+     *
+     * @return
+     */
+    public Histogram getBind() {
+        return mBind;
+    }
+
+    /**
+     * DateView.onDraw的耗时
+     *
+     * @return
+     */
+    public Histogram getDraw() {
+        return mDraw;
+    }
+
+    /**
+     * DateView.onMeasure的耗时
+     *
+     * @return
+     */
+    public Histogram getMeasure() {
+        return mMeasure;
+    }
+
+    /**
+     * 点击日期到回调{@link DatePickerController#onDayOfMonthSelected}（多选时是
+     * {@link MultiDatePickerController#onDayIntervalsSelected}）的延迟
+     *
+     * @return
+     */
+    public Histogram getTapToCallback() {
+        return mTapToCallback;
+    }
+
+    /**
+     * 创建了多少个ViewHolder
+     *
+     * @return
+     */
+    public long getViewHolderCreatedCount() {
+        return mViewHolderCreated.get();
+    }
+
+    void onViewHolderCreated() {
+        mViewHolderCreated.incrementAndGet();
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        mBind.reset();
+        mDraw.reset();
+        mMeasure.reset();
+        mTapToCallback.reset();
+        mViewHolderCreated.set(0);
+    }
+
+    /**
+     * 耗时的分布，按纳秒的2的幂分桶：第i个桶是[2^(i-1), 2^i)纳秒，第0个桶是0
+     */
+    public static final class Histogram {
+        private static final int BUCKET_COUNT = 64;
+
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotalNanos = new AtomicLong();
+        private final AtomicLong mMaxNanos = new AtomicLong();
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+        Histogram() {
+        }
+
+        /**
+         * 记录一次耗时
+         *
+         * @param nanos 负数按0记录
+         */
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            mCount.incrementAndGet();
+            mTotalNanos.addAndGet(nanos);
+            mBuckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+            long max = mMaxNanos.get();
+            while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+                max = mMaxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos.get();
+        }
+
+        /**
+         * @return 没有记录时返回0
+         */
+        public long getMeanNanos() {
+            long count = mCount.get();
+            return count > 0 ? mTotalNanos.get() / count : 0;
+        }
+
+        /**
+         * 第几个桶的次数
+         *
+         * @param bucket 0~63
+         * @return
+         */
+        public long getBucketCount(int bucket) {
+            return mBuckets.get(bucket);
+        }
+
+        /**
+         * 分位数的上界，落在同一个桶里的耗时无法区分，结果最多偏大一倍
+         *
+         * @param percentile 0~100
+         * @return 没有记录时返回0
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("分位数必须在0~100之间");
+            }
+            long count = mCount.get();
+            if (count == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= target && seen > 0) {
+                    // i为63时(1L << 63) - 1溢出后正好是Long.MAX_VALUE
+                    return i == 0 ? 0 : Math.min((1L << i) - 1, mMaxNanos.get());
+                }
+            }
+            return mMaxNanos.get();
+        }
+
+        public void reset() {
+            mCount.set(0);
+            mTotalNanos.set(0);
+            mMaxNanos.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets.set(i, 0);
+            }
+        }
+    }
+}
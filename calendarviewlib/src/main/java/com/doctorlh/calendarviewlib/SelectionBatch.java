@@ -0,0 +1,117 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 一次性修改选择的日期，通过{@link DatePikerView#beginSelection()}获取
+ * 修改只作用在副本上，{@link #commit()}时整体检查，通过后只回调一次、只刷新变化的月份
+ */
+public class SelectionBatch {
+    private final DatePickAdapter mAdapter;
+    private final boolean mMultiple;                    // 是否是多选模式
+    private int mFirst;                                 // 范围选择的开始日期
+    private int mLast;                                  // 范围选择的结束日期
+    private final DayIntervals mIntervals;              // 多选时选中的日期
+    private boolean mCommitted;
+
+    SelectionBatch(DatePickAdapter adapter, boolean multiple, int first, int last, DayIntervals intervals) {
+        mAdapter = adapter;
+        mMultiple = multiple;
+        mFirst = first;
+        mLast = last;
+        mIntervals = intervals != null ? new DayIntervals(intervals) : new DayIntervals();
+    }
+
+    /**
+     * 范围选择时设置开始和结束日期
+     *
+     * @param first 开始日期，为null时清空选择
+     * @param last  结束日期，为null时只有开始日期
+     */
+    public void setRange(DatePickAdapter.CalendarDay first, DatePickAdapter.CalendarDay last) {
+        checkState(!mMultiple, "多选模式请使用addDays和removeDays");
+        mFirst = first != null ? first.getEpochDay() : CalendarUtils.NO_DAY;
+        mLast = first != null && last != null ? last.getEpochDay() : CalendarUtils.NO_DAY;
+    }
+
+    /**
+     * 多选时选中[from, to]
+     *
+     * @param from
+     * @param to
+     */
+    public void addDays(DatePickAdapter.CalendarDay from, DatePickAdapter.CalendarDay to) {
+        checkState(mMultiple, "范围选择模式请使用setRange");
+        mIntervals.add(from.getEpochDay(), to.getEpochDay());
+    }
+
+    /**
+     * 多选时选中一天
+     *
+     * @param day
+     */
+    public void addDay(DatePickAdapter.CalendarDay day) {
+        addDays(day, day);
+    }
+
+    /**
+     * 多选时取消选中[from, to]
+     *
+     * @param from
+     * @param to
+     */
+    public void removeDays(DatePickAdapter.CalendarDay from, DatePickAdapter.CalendarDay to) {
+        checkState(mMultiple, "范围选择模式请使用setRange");
+        mIntervals.remove(from.getEpochDay(), to.getEpochDay());
+    }
+
+    /**
+     * 多选时取消选中一天
+     *
+     * @param day
+     */
+    public void removeDay(DatePickAdapter.CalendarDay day) {
+        removeDays(day, day);
+    }
+
+    /**
+     * 清空选择
+     */
+    public void clear() {
+        mFirst = CalendarUtils.NO_DAY;
+        mLast = CalendarUtils.NO_DAY;
+        mIntervals.clear();
+    }
+
+    /**
+     * 检查并应用所有修改，不满足限制时回调{@link DatePickerController#alertSelectedFail}，选择不变
+     * 每个SelectionBatch只能提交一次
+     *
+     * @return 是否应用成功
+     */
+    public boolean commit() {
+        checkState(!mCommitted, "SelectionBatch只能提交一次");
+        mCommitted = true;
+        return mAdapter.commitSelection(this);
+    }
+
+    boolean isMultiple() {
+        return mMultiple;
+    }
+
+    int getFirst() {
+        return mFirst;
+    }
+
+    int getLast() {
+        return mLast;
+    }
+
+    DayIntervals getIntervals() {
+        return mIntervals;
+    }
+
+    private static void checkState(boolean expression, String message) {
+        if (!expression) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.doctorlh.calendarviewlib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * 日期文字（1~31）和固定标签（开始、结束、单日）的图集，每个主题只栅格化一次
+ * 图集是ALPHA_8位图，绘制时用画笔的颜色着色，同一个图集可以画出不同颜色的文字
+ * 只在主线程使用
+ */
+final class TextAtlas {
+    static final int TAG_START = 0;                             // 开始
+    static final int TAG_END = 1;                               // 结束
+    static final int TAG_SINGLE = 2;                            // 单日
+    static final String[] TAG_TEXTS = {"开始", "结束", "单日"};
+
+    private static final int MAX_WIDTH = 512;                   // 图集每一行的最大宽度
+    private static final int SPACING = 1;                       // 相邻文字之间留空，避免采样到旁边的文字
+    private static final int TAG_BASE = DateView.DAY_NUMBER_TEXTS.length;   // 标签在图集中的起始位置
+
+    private final Bitmap mBitmap;
+    private final Rect[] mSrcRects;                             // 每段文字在图集中的位置
+    private final int[] mAscents;                               // 基线到文字顶部的距离（向上取整）
+    private final Rect mDstRect = new Rect();                   // 绘制时复用
+
+    TextAtlas(DateViewTheme theme) {
+        int count = TAG_BASE + TAG_TEXTS.length;
+        String[] texts = new String[count];
+        Paint[] paints = new Paint[count];
+        Paint dayPaint = newMaskPaint(theme.dayTextPaint);
+        for (int i = 1; i < TAG_BASE; i++) {
+            texts[i] = DateView.DAY_NUMBER_TEXTS[i];
+            paints[i] = dayPaint;
+        }
+        Paint tagPaint = newMaskPaint(theme.tagPaint);
+        for (int i = 0; i < TAG_TEXTS.length; i++) {
+            texts[TAG_BASE + i] = TAG_TEXTS[i];
+            paints[TAG_BASE + i] = tagPaint;
+        }
+
+        // 按行排列，先计算每段文字的位置和整个图集的大小
+        mSrcRects = new Rect[count];
+        mAscents = new int[count];
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        int width = 0;
+        for (int i = 1; i < count; i++) {
+            Paint.FontMetrics fontMetrics = paints[i].getFontMetrics();
+            int ascent = (int) Math.ceil(-fontMetrics.top);
+            int w = (int) Math.ceil(paints[i].measureText(texts[i]));
+            int h = ascent + (int) Math.ceil(fontMetrics.bottom);
+            if (x > 0 && x + w > MAX_WIDTH) {
+                x = 0;
+                y += rowHeight + SPACING;
+                rowHeight = 0;
+            }
+            mSrcRects[i] = new Rect(x, y, x + w, y + h);
+            mAscents[i] = ascent;
+            x += w + SPACING;
+            rowHeight = Math.max(rowHeight, h);
+            width = Math.max(width, x);
+        }
+
+        mBitmap = Bitmap.createBitmap(Math.max(width, 1), Math.max(y + rowHeight, 1), Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 1; i < count; i++) {
+            Rect rect = mSrcRects[i];
+            canvas.drawText(texts[i], rect.exactCenterX(), rect.top + mAscents[i], paints[i]);
+        }
+    }
+
+    /**
+     * 绘制日期文字，位置和{@code canvas.drawText(DAY_NUMBER_TEXTS[day], x, baseline, paint)}相同
+     *
+     * @param canvas
+     * @param day      1~31
+     * @param x        文字的水平中心
+     * @param baseline 基线
+     * @param paint    只使用颜色
+     */
+    void drawDay(Canvas canvas, int day, int x, float baseline, Paint paint) {
+        draw(canvas, day, x, baseline, paint);
+    }
+
+    /**
+     * 绘制标签
+     *
+     * @param canvas
+     * @param tag      TAG_开头
+     * @param x        文字的水平中心
+     * @param baseline 基线
+     * @param paint    只使用颜色
+     */
+    void drawTag(Canvas canvas, int tag, int x, float baseline, Paint paint) {
+        draw(canvas, TAG_BASE + tag, x, baseline, paint);
+    }
+
+    private void draw(Canvas canvas, int index, int x, float baseline, Paint paint) {
+        Rect src = mSrcRects[index];
+        int left = x - src.width() / 2;
+        int top = Math.round(baseline) - mAscents[index];
+        mDstRect.set(left, top, left + src.width(), top + src.height());
+        canvas.drawBitmap(mBitmap, src, mDstRect, paint);
+    }
+
+    /**
+     * 栅格化用的画笔：字号、字体和主题相同，颜色不透明，只保留覆盖率
+     */
+    private static Paint newMaskPaint(Paint textPaint) {
+        Paint paint = new Paint(textPaint);
+        paint.setColor(Color.BLACK);
+        return paint;
+    }
+}
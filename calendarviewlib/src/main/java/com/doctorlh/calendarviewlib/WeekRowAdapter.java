@@ -0,0 +1,145 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+
+/**
+ * 按周展开的Adapter，每个月拆成一个头部和若干行，每一项的绑定和绘制开销都很小
+ * 选择变化时只刷新涉及的行
+ */
+class WeekRowAdapter extends DatePickAdapter {
+    private static final int VIEW_TYPE_HEADER = 0;
+    private static final int VIEW_TYPE_ROW = 1;
+    private static final int DAYS_IN_WEEK = 7;
+
+    private int[] mMonthStarts = new int[0];                // 每个月头部的位置，最后多一项是总数
+    private int mMonthStartsWeekStart;                      // 计算mMonthStarts时一周的第一天
+
+    WeekRowAdapter(Context context, DateViewTheme theme, DatePickerController datePickerController, DatePikerView.DataModel dataModel) {
+        super(context, theme, datePickerController, dataModel);
+        buildMonthStarts();
+    }
+
+    @Override
+    protected void setDataModel(DatePikerView.DataModel dataModel) {
+        super.setDataModel(dataModel);
+        buildMonthStarts();
+    }
+
+    /**
+     * 计算每个月的头部位置（前缀和），直接用天数计算每个月的行数，不创建MonthLayout
+     */
+    private void buildMonthStarts() {
+        int monthCount = getMonthCount();
+        int weekStart = getWeekStart();
+        if (mMonthStarts.length != monthCount + 1) {
+            mMonthStarts = new int[monthCount + 1];
+        }
+        int monthIndex = super.getMonthIndex(0);
+        int year = monthIndex / MONTHS_IN_YEAR;
+        int month = monthIndex % MONTHS_IN_YEAR;
+        int firstEpochDay = CalendarUtils.toEpochDay(year, month, 1);
+        int position = 0;
+        for (int i = 0; i < monthCount; i++) {
+            int daysInMonth = CalendarUtils.getDaysInMonth(month, year);
+            int dayOffset = (CalendarUtils.getDayOfWeek(firstEpochDay) - weekStart + DAYS_IN_WEEK) % DAYS_IN_WEEK;
+            mMonthStarts[i] = position;
+            position += 1 + (dayOffset + daysInMonth + DAYS_IN_WEEK - 1) / DAYS_IN_WEEK;
+
+            firstEpochDay += daysInMonth;
+            if (++month == MONTHS_IN_YEAR) {
+                month = 0;
+                year++;
+            }
+        }
+        mMonthStarts[monthCount] = position;
+        mMonthStartsWeekStart = weekStart;
+    }
+
+    /**
+     * 位置所在的月份在月份列表中的位置，二分查找
+     *
+     * @param position
+     * @return
+     */
+    private int findMonthPosition(int position) {
+        if (mMonthStartsWeekStart != getWeekStart()) {
+            buildMonthStarts();
+        }
+        int lo = 0;
+        int hi = mMonthStarts.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (mMonthStarts[mid] <= position) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mMonthStarts[mMonthStarts.length - 1];
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getWindowRow(position) == DateView.ROW_HEADER ? VIEW_TYPE_HEADER : VIEW_TYPE_ROW;
+    }
+
+    @Override
+    protected int getWindowRow(int position) {
+        int monthPosition = findMonthPosition(position);
+        return position - mMonthStarts[monthPosition] - 1;
+    }
+
+    @Override
+    public int getMonthIndex(int position) {
+        return super.getMonthIndex(findMonthPosition(position));
+    }
+
+    /**
+     * 月份头部在列表中的位置
+     *
+     * @param year
+     * @param month 0~11
+     * @return 可能超出列表范围
+     */
+    @Override
+    public int getPositionForMonth(int year, int month) {
+        return toItemPosition(super.getPositionForMonth(year, month));
+    }
+
+    /**
+     * 某一天所在的行在列表中的位置，选择变化时只刷新这些行
+     *
+     * @param epochDay
+     * @return 可能超出列表范围
+     */
+    @Override
+    protected int getPositionForEpochDay(int epochDay) {
+        int monthPosition = super.getPositionForEpochDay(epochDay);
+        if (monthPosition < 0 || monthPosition >= getMonthCount()) {
+            return toItemPosition(monthPosition);
+        }
+        int monthIndex = super.getMonthIndex(monthPosition);
+        CalendarUtils.MonthLayout layout = CalendarUtils.getMonthLayout(monthIndex / MONTHS_IN_YEAR, monthIndex % MONTHS_IN_YEAR, getWeekStart());
+        int row = (layout.dayOffset + epochDay - layout.firstEpochDay) / DAYS_IN_WEEK;
+        return mMonthStarts[monthPosition] + 1 + row;
+    }
+
+    /**
+     * 月份在月份列表中的位置换算成头部的位置，超出范围时保持在范围外
+     */
+    private int toItemPosition(int monthPosition) {
+        if (monthPosition < 0) {
+            return monthPosition;
+        }
+        int monthCount = getMonthCount();
+        if (monthPosition >= monthCount) {
+            return getItemCount() + monthPosition - monthCount;
+        }
+        return mMonthStarts[monthPosition];
+    }
+}
@@ -0,0 +1,146 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import android.view.ViewGroup.LayoutParams;
+import android.widget.AbsListView;
+
+/**
+ * 年份总览的Adapter，每一项是一整年
+ * 选择状态和月份范围都来自{@link DatePickAdapter}，月份列表的刷新会转换成对应年份的刷新
+ */
+class YearPickAdapter extends RecyclerView.Adapter<YearPickAdapter.ViewHolder> {
+    private static final int VIRTUAL_YEAR_COUNT = DatePickAdapter.VIRTUAL_MONTH_COUNT / DatePickAdapter.MONTHS_IN_YEAR;
+
+    private final Context mContext;
+    private final DatePickAdapter mMonthAdapter;
+    private final YearView.YearStyle mStyle;                    // 所有年份共用的画笔
+    private final DatePikerView.DataModel mDataModel;
+    private final RecyclerView.AdapterDataObserver mMonthObserver;
+    private BlockedDays mBlockedDays;
+    private DatePikerView.OnMonthClickListener mOnMonthClickListener;
+    private int mFirstYear;                                     // 位置0对应的年份
+
+    YearPickAdapter(Context context, DatePickAdapter monthAdapter, DatePikerView.DataModel dataModel) {
+        mContext = context;
+        mMonthAdapter = monthAdapter;
+        mDataModel = dataModel;
+        mStyle = new YearView.YearStyle(monthAdapter.getTheme());
+        mFirstYear = dataModel.infinite ? dataModel.yearStart - VIRTUAL_YEAR_COUNT / 2 : dataModel.yearStart;
+        mMonthObserver = new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                notifyMonthsChanged(positionStart, itemCount, null);
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                notifyMonthsChanged(positionStart, itemCount, payload);
+            }
+        };
+    }
+
+    /**
+     * 开始跟随月份列表的刷新
+     */
+    void attach() {
+        mMonthAdapter.registerAdapterDataObserver(mMonthObserver);
+    }
+
+    /**
+     * 停止跟随月份列表的刷新
+     */
+    void detach() {
+        mMonthAdapter.unregisterAdapterDataObserver(mMonthObserver);
+    }
+
+    void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+    }
+
+    void setOnMonthClickListener(DatePikerView.OnMonthClickListener onMonthClickListener) {
+        mOnMonthClickListener = onMonthClickListener;
+    }
+
+    /**
+     * 月份列表中的一段变化后，只刷新这些月份所在的年份
+     */
+    private void notifyMonthsChanged(int positionStart, int itemCount, Object payload) {
+        int fromYear = mMonthAdapter.getMonthIndex(positionStart) / DatePickAdapter.MONTHS_IN_YEAR;
+        int toYear = mMonthAdapter.getMonthIndex(positionStart + itemCount - 1) / DatePickAdapter.MONTHS_IN_YEAR;
+        int from = Math.max(fromYear - mFirstYear, 0);
+        int to = Math.min(toYear - mFirstYear, getItemCount() - 1);
+        if (from <= to) {
+            notifyItemRangeChanged(from, to - from + 1, payload);
+        }
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        YearView yearView = new YearView(mContext, mStyle);
+        yearView.setLayoutParams(new AbsListView.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+        yearView.setClickable(true);
+        return new ViewHolder(yearView);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        YearView yearView = holder.yearView;
+        DatePickAdapter.SelectedDays<DatePickAdapter.CalendarDay> selectedDays = mDataModel.selectedDays;
+        int first = selectedDays.getFirst() != null ? selectedDays.getFirst().getEpochDay() : CalendarUtils.NO_DAY;
+        int last = selectedDays.getLast() != null ? selectedDays.getLast().getEpochDay() : CalendarUtils.NO_DAY;
+
+        yearView.setYear(getYear(position), mMonthAdapter.getWeekStart());
+        if (!mDataModel.infinite) {
+            yearView.setMonthRange(mMonthAdapter.getMonthIndex(0), mMonthAdapter.getMonthIndex(mMonthAdapter.getItemCount() - 1));
+        }
+        yearView.setSelection(first, last, mMonthAdapter.isMultipleSelection() ? mDataModel.selectedIntervals : null);
+        yearView.setBlockedDays(mBlockedDays);
+        yearView.setOnMonthClickListener(mOnMonthClickListener);
+        yearView.invalidate();
+    }
+
+    @Override
+    public int getItemCount() {
+        if (mDataModel.infinite) {
+            return VIRTUAL_YEAR_COUNT;
+        }
+        int lastMonthIndex = mMonthAdapter.getMonthIndex(mMonthAdapter.getItemCount() - 1);
+        return lastMonthIndex / DatePickAdapter.MONTHS_IN_YEAR - mFirstYear + 1;
+    }
+
+    /**
+     * 位置对应的年份
+     *
+     * @param position
+     * @return
+     */
+    int getYear(int position) {
+        return mFirstYear + position;
+    }
+
+    /**
+     * 年份在列表中的位置
+     *
+     * @param year
+     * @return 可能超出列表范围
+     */
+    int getPositionForYear(int year) {
+        return year - mFirstYear;
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final YearView yearView;
+
+        ViewHolder(YearView itemView) {
+            super(itemView);
+            yearView = itemView;
+        }
+    }
+}
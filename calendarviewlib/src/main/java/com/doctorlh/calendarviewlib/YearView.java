@@ -0,0 +1,253 @@
+package com.doctorlh.calendarviewlib;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Paint.Style;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * 年份总览中的一年，在一个View里绘制12个小月份，不嵌套子View
+ */
+class YearView extends View {
+    private static final int MONTH_COLUMNS = 3;                 // 一行几个月
+    private static final int MONTH_ROWS = 4;                    // 几行月份
+    private static final int WEEK_ROWS = 6;                     // 每个月固定按6行排列，所有月份对齐
+    private static final int DAYS_IN_WEEK = 7;
+
+    private final YearStyle mStyle;                             // 所有年份共用的画笔
+    private final CalendarUtils.MonthLayout[] mMonthLayouts = new CalendarUtils.MonthLayout[12];
+
+    private int mYear;
+    private String mYearTitle;                                  // 绑定时生成一次
+    private CalendarLabels mLabels;                             // 月份简称，绑定时获取当前语言的缓存
+    private int mMinMonthIndex = Integer.MIN_VALUE;             // 可用的月份范围（年份 * 12 + 月份），范围外的月份置灰
+    private int mMaxMonthIndex = Integer.MAX_VALUE;
+    private int mSelectedFirst = CalendarUtils.NO_DAY;          // 开始日期
+    private int mSelectedLast = CalendarUtils.NO_DAY;           // 结束日期
+    private DayIntervals mSelectedIntervals;                    // 多选时选中的日期
+    private BlockedDays mBlockedDays;                           // 不可选的日期
+
+    // 在onSizeChanged中计算一次
+    private int mCellSize;                                      // 每一天的宽度和高度
+    private int mMonthWidth;
+    private int mMonthHeight;
+    private int mMonthTitleHeight;
+    private int mYearTitleHeight;
+
+    private DatePikerView.OnMonthClickListener mOnMonthClickListener;
+
+    YearView(Context context, YearStyle style) {
+        super(context);
+        mStyle = style;
+    }
+
+    /**
+     * 设置要显示的年份
+     *
+     * @param year
+     * @param weekStart 一周的第一天
+     */
+    void setYear(int year, int weekStart) {
+        mYear = year;
+        mYearTitle = String.valueOf(year);
+        mLabels = CalendarLabels.get();
+        for (int month = 0; month < mMonthLayouts.length; month++) {
+            mMonthLayouts[month] = CalendarUtils.getMonthLayout(year, month, weekStart);
+        }
+    }
+
+    int getYear() {
+        return mYear;
+    }
+
+    /**
+     * @param minMonthIndex 第一个可用的月份（年份 * 12 + 月份）
+     * @param maxMonthIndex 最后一个可用的月份
+     */
+    void setMonthRange(int minMonthIndex, int maxMonthIndex) {
+        mMinMonthIndex = minMonthIndex;
+        mMaxMonthIndex = maxMonthIndex;
+    }
+
+    /**
+     * @param first     开始日期，NO_DAY表示没有
+     * @param last      结束日期，NO_DAY表示没有
+     * @param intervals 多选时选中的日期，为null时是范围选择
+     */
+    void setSelection(int first, int last, DayIntervals intervals) {
+        mSelectedFirst = first;
+        mSelectedLast = last;
+        mSelectedIntervals = intervals;
+    }
+
+    void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+    }
+
+    void setOnMonthClickListener(DatePikerView.OnMonthClickListener onMonthClickListener) {
+        mOnMonthClickListener = onMonthClickListener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        computeLayout(width);
+        setMeasuredDimension(width, mYearTitleHeight + mMonthHeight * MONTH_ROWS);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        computeLayout(w);
+    }
+
+    /**
+     * 根据宽度计算各部分的尺寸，每个月左右各留半个cell的间距
+     *
+     * @param width
+     */
+    private void computeLayout(int width) {
+        mMonthWidth = width / MONTH_COLUMNS;
+        mCellSize = mMonthWidth / (DAYS_IN_WEEK + 1);
+        mMonthTitleHeight = mCellSize * 3 / 2;
+        mMonthHeight = mMonthTitleHeight + mCellSize * WEEK_ROWS + mCellSize / 2;
+        mYearTitleHeight = mCellSize * 2;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mCellSize <= 0 || mYearTitle == null) {
+            return;
+        }
+        canvas.drawText(mYearTitle, getWidth() / 2, mYearTitleHeight / 2 + mStyle.yearTitleOffsetY, mStyle.yearTitlePaint);
+        for (int month = 0; month < mMonthLayouts.length; month++) {
+            drawMonth(canvas, month);
+        }
+    }
+
+    /**
+     * 绘制一个小月份，按天数递增，只做整数比较
+     *
+     * @param canvas
+     * @param month
+     */
+    private void drawMonth(Canvas canvas, int month) {
+        CalendarUtils.MonthLayout layout = mMonthLayouts[month];
+        int left = (month % MONTH_COLUMNS) * mMonthWidth + mCellSize / 2;
+        int top = mYearTitleHeight + (month / MONTH_COLUMNS) * mMonthHeight;
+        int monthIndex = mYear * 12 + month;
+        boolean enabled = monthIndex >= mMinMonthIndex && monthIndex <= mMaxMonthIndex;
+
+        canvas.drawText(mLabels.getShortMonth(month), left + mCellSize * DAYS_IN_WEEK / 2,
+                top + mMonthTitleHeight / 2 + mStyle.monthTitleOffsetY, enabled ? mStyle.monthTitlePaint : mStyle.disabledDayPaint);
+
+        int half = mCellSize / 2;
+        int column = layout.dayOffset;
+        int cellTop = top + mMonthTitleHeight;
+        int epochDay = layout.firstEpochDay;
+        for (int day = 1; day <= layout.daysInMonth; day++, epochDay++) {
+            int cellLeft = left + column * mCellSize;
+            Paint textPaint = mStyle.dayPaint;
+            if (!enabled || (mBlockedDays != null && mBlockedDays.isBlocked(epochDay))) {
+                textPaint = mStyle.disabledDayPaint;
+            } else {
+                Paint bgPaint = null;
+                if (mSelectedIntervals != null) {
+                    int index = epochDay == mSelectedFirst ? -1 : mSelectedIntervals.indexOf(epochDay);
+                    if (epochDay == mSelectedFirst) {
+                        bgPaint = mStyle.selectedBgPaint;
+                    } else if (index >= 0) {
+                        boolean edge = epochDay == mSelectedIntervals.getStart(index) || epochDay == mSelectedIntervals.getEnd(index);
+                        bgPaint = edge ? mStyle.selectedBgPaint : mStyle.betweenBgPaint;
+                    }
+                } else if (epochDay == mSelectedFirst || epochDay == mSelectedLast) {
+                    bgPaint = mStyle.selectedBgPaint;
+                } else if (epochDay > mSelectedFirst && epochDay < mSelectedLast) {
+                    bgPaint = mStyle.betweenBgPaint;
+                }
+                if (bgPaint != null) {
+                    canvas.drawRect(cellLeft, cellTop, cellLeft + mCellSize, cellTop + mCellSize, bgPaint);
+                    if (bgPaint == mStyle.selectedBgPaint) {
+                        textPaint = mStyle.selectedDayPaint;
+                    }
+                }
+            }
+            canvas.drawText(DateView.DAY_NUMBER_TEXTS[day], cellLeft + half, cellTop + half + mStyle.dayOffsetY, textPaint);
+
+            column++;
+            if (column == DAYS_IN_WEEK) {
+                column = 0;
+                cellTop += mCellSize;
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP && mOnMonthClickListener != null && mMonthWidth > 0) {
+            int column = (int) event.getX() / mMonthWidth;
+            int row = ((int) event.getY() - mYearTitleHeight) / mMonthHeight;
+            if (event.getY() >= mYearTitleHeight && column < MONTH_COLUMNS && row < MONTH_ROWS) {
+                int month = row * MONTH_COLUMNS + column;
+                int monthIndex = mYear * 12 + month;
+                if (monthIndex >= mMinMonthIndex && monthIndex <= mMaxMonthIndex) {
+                    mOnMonthClickListener.onMonthClick(mYear, month);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 年份总览的画笔，由日历的主题生成，每个日历创建一次，所有年份共用，创建后不再修改
+     */
+    static final class YearStyle {
+        final Paint yearTitlePaint;
+        final Paint monthTitlePaint;
+        final Paint dayPaint;
+        final Paint selectedDayPaint;
+        final Paint disabledDayPaint;
+        final Paint selectedBgPaint;
+        final Paint betweenBgPaint;
+        final float yearTitleOffsetY;                           // 文字基线相对中心的偏移
+        final float monthTitleOffsetY;
+        final float dayOffsetY;
+
+        YearStyle(DateViewTheme theme) {
+            yearTitlePaint = newTextPaint(theme.yearMonthTextColor, theme.yearMonthTextSize);
+            yearTitlePaint.setFakeBoldText(true);
+            monthTitlePaint = newTextPaint(theme.yearMonthTextColor, theme.weekTextSize);
+            dayPaint = newTextPaint(theme.dayTextColor, theme.tagTextSize);
+            selectedDayPaint = newTextPaint(theme.selectedDayTextColor, theme.tagTextSize);
+            disabledDayPaint = newTextPaint(theme.disabledDayTextColor, theme.tagTextSize);
+
+            // 背景不依赖字号，直接共用日历的画笔
+            selectedBgPaint = theme.selectedDayBgPaint;
+            betweenBgPaint = theme.selectedBetweenBgPaint;
+
+            yearTitleOffsetY = getCenterOffsetY(yearTitlePaint);
+            monthTitleOffsetY = getCenterOffsetY(monthTitlePaint);
+            dayOffsetY = getCenterOffsetY(dayPaint);
+        }
+
+        private static Paint newTextPaint(int color, int textSize) {
+            Paint paint = new Paint();
+            paint.setAntiAlias(true);
+            paint.setColor(color);
+            paint.setTextSize(textSize);
+            paint.setStyle(Style.FILL);
+            paint.setTextAlign(Align.CENTER);
+            return paint;
+        }
+
+        /**
+         * 文字在中心线上居中时基线的偏移
+         */
+        private static float getCenterOffsetY(Paint paint) {
+            Paint.FontMetrics fontMetrics = paint.getFontMetrics();
+            return (fontMetrics.bottom - fontMetrics.top) / 2 - fontMetrics.bottom;
+        }
+    }
+}
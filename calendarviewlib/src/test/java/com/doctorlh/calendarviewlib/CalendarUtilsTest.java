@@ -0,0 +1,159 @@
+package com.doctorlh.calendarviewlib;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日期换算的测试，用UTC的GregorianCalendar作为参照
+ */
+public class CalendarUtilsTest {
+    private static final long DAY_MILLIS = 24L * 3600 * 1000;
+
+    @Test
+    public void epochDay_matchesCalendar_over400Years() throws Exception {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(1800, Calendar.JANUARY, 1);
+        DatePickAdapter.CalendarDay day = new DatePickAdapter.CalendarDay(1970, Calendar.JANUARY, 1);
+
+        while (calendar.get(Calendar.YEAR) < 2200) {
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH);
+            int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+            int expected = (int) Math.floor(calendar.getTimeInMillis() / (double) DAY_MILLIS);
+
+            int epochDay = CalendarUtils.toEpochDay(year, month, dayOfMonth);
+            assertEquals(expected, epochDay);
+            assertEquals(year * 12 + month, CalendarUtils.getMonthIndex(epochDay));
+            assertEquals(calendar.get(Calendar.DAY_OF_WEEK), CalendarUtils.getDayOfWeek(epochDay));
+
+            day.setEpochDay(epochDay);
+            assertEquals(year, day.year);
+            assertEquals(month, day.month);
+            assertEquals(dayOfMonth, day.day);
+
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    @Test
+    public void countDays_matchesCalendar_forRandomPairs() throws Exception {
+        Random random = new Random(20170427);
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        for (int i = 0; i < 100000; i++) {
+            calendar.clear();
+            calendar.set(1800 + random.nextInt(400), random.nextInt(12), 1);
+            calendar.set(Calendar.DAY_OF_MONTH, 1 + random.nextInt(calendar.getActualMaximum(Calendar.DAY_OF_MONTH)));
+            long firstMillis = calendar.getTimeInMillis();
+            int first = CalendarUtils.toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+
+            int span = random.nextInt(1000);
+            calendar.add(Calendar.DAY_OF_MONTH, span);
+            int last = CalendarUtils.toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+
+            assertEquals((calendar.getTimeInMillis() - firstMillis) / DAY_MILLIS + 1, CalendarUtils.countDays(first, last));
+        }
+    }
+
+    @Test
+    public void todayEpochDay_matchesCalendar() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        int expected = CalendarUtils.toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),
+                calendar.get(Calendar.DAY_OF_MONTH));
+        int today = CalendarUtils.getTodayEpochDay();
+        // 正好跨过零点时允许差一天
+        assertTrue(today == expected || today == expected + 1);
+        assertEquals(today, CalendarUtils.getTodayEpochDay());
+    }
+
+    /**
+     * 没有规范化的日期（1月32日）和2月1日的equals、hashCode、compareTo要一致
+     */
+    @Test
+    public void calendarDay_equalsAgreesWithCompareTo() throws Exception {
+        DatePickAdapter.CalendarDay overflow = new DatePickAdapter.CalendarDay(2017, Calendar.JANUARY, 32);
+        DatePickAdapter.CalendarDay normal = new DatePickAdapter.CalendarDay(2017, Calendar.FEBRUARY, 1);
+        DatePickAdapter.CalendarDay next = new DatePickAdapter.CalendarDay(2017, Calendar.FEBRUARY, 2);
+
+        assertEquals(0, overflow.compareTo(normal));
+        assertEquals(normal, overflow);
+        assertEquals(overflow, normal);
+        assertEquals(normal.hashCode(), overflow.hashCode());
+        assertFalse(overflow.equals(next));
+        assertEquals(1, new HashSet<>(Arrays.asList(overflow, normal)).size());
+    }
+
+    /**
+     * 2017-03-12美国开始夏令时，2017-03-26欧洲开始夏令时，2017-10-29欧洲结束夏令时
+     * 每个时区下都检查dateDiff，原来按毫秒相减的实现在有夏令时的时区会少算或多算一天
+     */
+    @Test
+    public void dateDiff_acrossDaylightSaving_isNotOffByOne() throws Exception {
+        String[] timeZones = {"America/New_York", "America/Los_Angeles", "Europe/Berlin", "Asia/Tokyo",
+                "Australia/Sydney", "Pacific/Kiritimati", "UTC"};
+        int[][] ranges = {
+                {Calendar.MARCH, 10, Calendar.MARCH, 14},
+                {Calendar.MARCH, 11, Calendar.MARCH, 13},
+                {Calendar.MARCH, 12, Calendar.MARCH, 12},
+                {Calendar.MARCH, 25, Calendar.MARCH, 27},
+                {Calendar.MARCH, 1, Calendar.APRIL, 30},
+                {Calendar.OCTOBER, 28, Calendar.OCTOBER, 30},
+        };
+        DatePikerView.DataModel dataModel = new DatePikerView.DataModel();
+        DatePickAdapter adapter = new DatePickAdapter(null, (DateViewTheme) null, null, dataModel);
+
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        int legacyErrors = 0;
+        try {
+            for (String timeZone : timeZones) {
+                TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+                for (int[] range : ranges) {
+                    DatePickAdapter.CalendarDay first = new DatePickAdapter.CalendarDay(2017, range[0], range[1]);
+                    DatePickAdapter.CalendarDay last = new DatePickAdapter.CalendarDay(2017, range[2], range[3]);
+                    int expected = utcDays(range[2], range[3]) - utcDays(range[0], range[1]) + 1;
+                    assertEquals(timeZone + " " + Arrays.toString(range), expected, adapter.dateDiff(first, last));
+                    if (legacyDateDiff(first, last) != expected) {
+                        legacyErrors++;
+                    }
+                }
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+        // 确认这些日期确实跨过了夏令时切换：原来的实现在美国和欧洲时区各有出错的范围
+        assertTrue(legacyErrors >= 4);
+    }
+
+    /**
+     * 2017年某天在UTC下的天数，UTC没有夏令时，用作参照
+     */
+    private static int utcDays(int month, int day) {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2017, month, day);
+        return (int) (calendar.getTimeInMillis() / DAY_MILLIS);
+    }
+
+    /**
+     * 原来的dateDiff：默认时区的毫秒数相减后除以一天的毫秒数
+     */
+    private static int legacyDateDiff(DatePickAdapter.CalendarDay first, DatePickAdapter.CalendarDay last) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(first.year, first.month, first.day);
+        long firstMillis = calendar.getTimeInMillis();
+        calendar.clear();
+        calendar.set(last.year, last.month, last.day);
+        return (int) ((calendar.getTimeInMillis() - firstMillis) / DAY_MILLIS) + 1;
+    }
+}
@@ -0,0 +1,46 @@
+package com.doctorlh.calendarviewlib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 性能统计直方图的测试
+ */
+public class PickerMetricsTest {
+
+    @Test
+    public void record_bucketsByPowerOfTwo() throws Exception {
+        PickerMetrics.Histogram histogram = new PickerMetrics().getDraw();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(1000);
+        histogram.record(1023);
+        histogram.record(-5);
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(2024, histogram.getTotalNanos());
+        assertEquals(1023, histogram.getMaxNanos());
+        assertEquals(2, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(1));
+        assertEquals(2, histogram.getBucketCount(10));
+    }
+
+    @Test
+    public void percentile_returnsBucketUpperBound() throws Exception {
+        PickerMetrics metrics = new PickerMetrics();
+        PickerMetrics.Histogram histogram = metrics.getBind();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+
+        assertEquals(127, histogram.getPercentileNanos(50));
+        assertEquals(127, histogram.getPercentileNanos(99));
+        assertEquals(5000, histogram.getPercentileNanos(100));
+
+        metrics.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+}
@@ -0,0 +1,67 @@
+package com.doctorlh.calendarviewlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较原来按毫秒相减的dateDiff和现在按天数计算的CalendarUtils.countDays
+ * 原来的实现每次调用都要经过Calendar换算，创建两个Date，再通过String转换成int
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateDiffBenchmark {
+    private static final int PAIR_COUNT = 1024;                 // 必须是2的幂
+
+    private final LegacyCalendarDay[] mFirsts = new LegacyCalendarDay[PAIR_COUNT];
+    private final LegacyCalendarDay[] mLasts = new LegacyCalendarDay[PAIR_COUNT];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20170427);
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            int first = CalendarUtils.toEpochDay(2017, random.nextInt(12), 1 + random.nextInt(28));
+            mFirsts[i] = new LegacyCalendarDay(first);
+            mLasts[i] = new LegacyCalendarDay(first + random.nextInt(100));
+        }
+    }
+
+    /**
+     * 原来的DatePickAdapter.dateDiff
+     */
+    @Benchmark
+    public int legacyDateDiff() {
+        int index = mIndex++ & (PAIR_COUNT - 1);
+        LegacyCalendarDay first = mFirsts[index];
+        LegacyCalendarDay last = mLasts[index];
+        long dayDiff = (last.getDate().getTime() - first.getDate().getTime()) / (1000 * 3600 * 24);
+        return Integer.valueOf(String.valueOf(dayDiff)) + 1;
+    }
+
+    /**
+     * 现在的DatePickAdapter.dateDiff：年月日换算成天数后相减
+     */
+    @Benchmark
+    public int epochDayDateDiff() {
+        int index = mIndex++ & (PAIR_COUNT - 1);
+        LegacyCalendarDay first = mFirsts[index];
+        LegacyCalendarDay last = mLasts[index];
+        return CalendarUtils.countDays(CalendarUtils.toEpochDay(first.year, first.month, first.day),
+                CalendarUtils.toEpochDay(last.year, last.month, last.day));
+    }
+}
@@ -0,0 +1,106 @@
+package com.doctorlh.calendarviewlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较按年月日逐个字段比较日期和按天数比较的开销
+ * monthCells模拟绘制一个月时每个cell的选择状态判断，tapBeforeFirst模拟点击时判断是否早于开始日期
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpochDayCompareBenchmark {
+    private static final int YEAR = 2017;
+    private static final int MONTH = Calendar.MAY;
+    private static final int DAYS_IN_MONTH = 31;
+
+    // 选择了5月3日到5月20日
+    private final LegacyCalendarDay mLegacyStart = new LegacyCalendarDay();
+    private final LegacyCalendarDay mLegacyEnd = new LegacyCalendarDay();
+    private final LegacyCalendarDay mLegacyCell = new LegacyCalendarDay();
+    private int mStartEpochDay;
+    private int mEndEpochDay;
+    private int mFirstEpochDay;
+    private int mTapDay;
+
+    @Setup
+    public void setUp() {
+        mLegacyStart.setDay(YEAR, MONTH, 3);
+        mLegacyEnd.setDay(YEAR, MONTH, 20);
+        mStartEpochDay = CalendarUtils.toEpochDay(YEAR, MONTH, 3);
+        mEndEpochDay = CalendarUtils.toEpochDay(YEAR, MONTH, 20);
+        mFirstEpochDay = CalendarUtils.toEpochDay(YEAR, MONTH, 1);
+    }
+
+    /**
+     * 原来DateView.drawMonthCell中每个cell的判断：复用一个CalendarDay，和开始、结束日期逐个字段比较
+     */
+    @Benchmark
+    public int monthCellsLegacy() {
+        int selected = 0;
+        for (int day = 1; day <= DAYS_IN_MONTH; day++) {
+            mLegacyCell.setDay(YEAR, MONTH, day);
+            if (mLegacyStart.equals(mLegacyEnd) && mLegacyCell.equals(mLegacyStart)) {
+                selected++;
+            }
+            if (mLegacyCell.equals(mLegacyStart) && !mLegacyStart.equals(mLegacyEnd)) {
+                selected++;
+            }
+            if (mLegacyCell.equals(mLegacyEnd) && !mLegacyStart.equals(mLegacyEnd)) {
+                selected++;
+            }
+            if (mLegacyCell.after(mLegacyStart) && mLegacyCell.before(mLegacyEnd)) {
+                selected++;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 现在按天数比较，每个cell只有整数比较
+     */
+    @Benchmark
+    public int monthCellsEpochDay() {
+        int selected = 0;
+        boolean singleDay = mStartEpochDay == mEndEpochDay;
+        for (int day = 1; day <= DAYS_IN_MONTH; day++) {
+            int cellEpochDay = mFirstEpochDay + day - 1;
+            if (cellEpochDay == mStartEpochDay || cellEpochDay == mEndEpochDay) {
+                selected++;
+            } else if (!singleDay && cellEpochDay > mStartEpochDay && cellEpochDay < mEndEpochDay) {
+                selected++;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 原来setRangeSelectedDay中判断点击的日期是否早于开始日期，每次创建两个Date
+     */
+    @Benchmark
+    public boolean tapBeforeFirstLegacy() {
+        mLegacyCell.setDay(YEAR, MONTH, 1 + (mTapDay++ % DAYS_IN_MONTH));
+        return mLegacyCell.getDate().before(mLegacyStart.getDate());
+    }
+
+    @Benchmark
+    public boolean tapBeforeFirstEpochDay() {
+        int epochDay = CalendarUtils.toEpochDay(YEAR, MONTH, 1 + (mTapDay++ % DAYS_IN_MONTH));
+        return epochDay < mStartEpochDay;
+    }
+}
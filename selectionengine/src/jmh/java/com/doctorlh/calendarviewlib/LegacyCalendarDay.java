@@ -0,0 +1,98 @@
+package com.doctorlh.calendarviewlib;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 改成按天数比较之前的DatePickAdapter.CalendarDay，只保留比较和换算相关的部分，作为基准测试的参照
+ * 按年月日逐个字段比较，getDate()每次都经过Calendar换算并创建Date
+ */
+class LegacyCalendarDay implements Comparable<LegacyCalendarDay> {
+    private Calendar calendar;
+
+    int day;
+    int month;
+    int year;
+
+    LegacyCalendarDay() {
+    }
+
+    /**
+     * @param epochDay 1970年以后的日期
+     */
+    LegacyCalendarDay(int epochDay) {
+        int monthIndex = CalendarUtils.getMonthIndex(epochDay);
+        int year = monthIndex / 12;
+        int month = monthIndex % 12;
+        setDay(year, month, epochDay - CalendarUtils.toEpochDay(year, month, 1) + 1);
+    }
+
+    void setDay(int year, int month, int day) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+    }
+
+    Date getDate() {
+        if (calendar == null) {
+            calendar = Calendar.getInstance();
+        }
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTime();
+    }
+
+    @Override
+    public int compareTo(LegacyCalendarDay calendarDay) {
+        if (calendarDay == null) {
+            throw new IllegalArgumentException("被比较的日期不能是null");
+        }
+
+        if (year == calendarDay.year && month == calendarDay.month && day == calendarDay.day) {
+            return 0;
+        }
+
+        if (year < calendarDay.year ||
+                (year == calendarDay.year && month < calendarDay.month) ||
+                (year == calendarDay.year && month == calendarDay.month && day < calendarDay.day)) {
+            return -1;
+        }
+        return 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LegacyCalendarDay) {
+            LegacyCalendarDay calendarDay = (LegacyCalendarDay) o;
+            if (compareTo(calendarDay) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (year * 12 + month) * 31 + day;
+    }
+
+    boolean after(Object o) {
+        if (o instanceof LegacyCalendarDay) {
+            LegacyCalendarDay calendarDay = (LegacyCalendarDay) o;
+            if (compareTo(calendarDay) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean before(Object o) {
+        if (o instanceof LegacyCalendarDay) {
+            LegacyCalendarDay calendarDay = (LegacyCalendarDay) o;
+            if (compareTo(calendarDay) == -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.doctorlh.calendarviewlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SelectionEngine每秒能处理多少次点击，配合-prof gc看每次点击分配的字节数（gc.alloc.rate.norm），应该是0
+ * 点击的日期预先随机生成，覆盖开始、结束、重新选择和超出天数限制、包含不可选日期等失败的情况
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionEngineBenchmark {
+    private static final int TAP_COUNT = 1024;                  // 必须是2的幂
+    private static final int FIRST_DAY = CalendarUtils.toEpochDay(2017, Calendar.JANUARY, 1);
+    private static final int SPAN_DAYS = 365;
+
+    @Param({"0", "1", "2"})
+    public int mode;                                            // SelectionEngine.MODE_开头的模式
+
+    private SelectionEngine mEngine;
+    private final int[] mTaps = new int[TAP_COUNT];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20170427);
+        for (int i = 0; i < TAP_COUNT; i++) {
+            mTaps[i] = FIRST_DAY + random.nextInt(SPAN_DAYS);
+        }
+        // 每周日不可选
+        BlockedDays blockedDays = new BlockedDays();
+        for (int day = FIRST_DAY; day < FIRST_DAY + SPAN_DAYS; day++) {
+            if (CalendarUtils.getDayOfWeek(day) == Calendar.SUNDAY) {
+                blockedDays.block(day);
+            }
+        }
+
+        mEngine = new SelectionEngine();
+        mEngine.setDaysLimit(2, 30);
+        mEngine.setBlockedDays(blockedDays);
+        mEngine.setMode(mode);
+        mEngine.setIntervals(new DayIntervals());
+    }
+
+    /**
+     * 一次点击的状态转换
+     */
+    @Benchmark
+    public int select() {
+        return mEngine.select(mTaps[mIndex++ & (TAP_COUNT - 1)]);
+    }
+}
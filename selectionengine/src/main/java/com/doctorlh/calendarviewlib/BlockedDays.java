@@ -0,0 +1,162 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 不可选择的日期集合，按天数保存为位图，每个long保存64天
+ * 判断一段日期是否包含不可选的日期时按long整段比较
+ */
+public class BlockedDays {
+    private static final int WORD_BITS = 64;
+
+    private int mBaseEpochDay;                  // 第0位对应的天数，总是64的倍数
+    private long[] mWords = new long[0];
+
+    /**
+     * 某一天是否不可选
+     *
+     * @param epochDay 从1970-01-01开始的天数
+     * @return
+     */
+    public boolean isBlocked(int epochDay) {
+        int index = epochDay - mBaseEpochDay;
+        if (index < 0 || index >= mWords.length * WORD_BITS) {
+            return false;
+        }
+        return (mWords[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * [from, to]之间是否包含不可选的日期
+     *
+     * @param from 开始的天数（包含）
+     * @param to   结束的天数（包含）
+     * @return
+     */
+    public boolean containsBlocked(int from, int to) {
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        int lo = Math.max(from - mBaseEpochDay, 0);
+        int hi = Math.min(to - mBaseEpochDay, mWords.length * WORD_BITS - 1);
+        if (lo > hi) {
+            return false;
+        }
+        int loWord = lo >>> 6;
+        int hiWord = hi >>> 6;
+        long loMask = -1L << lo;
+        long hiMask = -1L >>> (WORD_BITS - 1 - (hi & (WORD_BITS - 1)));
+        if (loWord == hiWord) {
+            return (mWords[loWord] & loMask & hiMask) != 0;
+        }
+        if ((mWords[loWord] & loMask) != 0) {
+            return true;
+        }
+        for (int i = loWord + 1; i < hiWord; i++) {
+            if (mWords[i] != 0) {
+                return true;
+            }
+        }
+        return (mWords[hiWord] & hiMask) != 0;
+    }
+
+    /**
+     * 设置某一天不可选
+     *
+     * @param epochDay
+     */
+    public void block(int epochDay) {
+        blockRange(epochDay, epochDay);
+    }
+
+    /**
+     * 设置[from, to]之间的日期都不可选
+     *
+     * @param from 开始的天数（包含）
+     * @param to   结束的天数（包含）
+     */
+    public void blockRange(int from, int to) {
+        if (from > to) {
+            return;
+        }
+        ensureRange(from, to);
+        setRange(from - mBaseEpochDay, to - mBaseEpochDay, true);
+    }
+
+    /**
+     * 设置某一天可选
+     *
+     * @param epochDay
+     */
+    public void unblock(int epochDay) {
+        unblockRange(epochDay, epochDay);
+    }
+
+    /**
+     * 设置[from, to]之间的日期都可选
+     *
+     * @param from 开始的天数（包含）
+     * @param to   结束的天数（包含）
+     */
+    public void unblockRange(int from, int to) {
+        int lo = Math.max(from - mBaseEpochDay, 0);
+        int hi = Math.min(to - mBaseEpochDay, mWords.length * WORD_BITS - 1);
+        if (lo <= hi) {
+            setRange(lo, hi, false);
+        }
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        mBaseEpochDay = 0;
+        mWords = new long[0];
+    }
+
+    private void setRange(int lo, int hi, boolean value) {
+        int loWord = lo >>> 6;
+        int hiWord = hi >>> 6;
+        for (int i = loWord; i <= hiWord; i++) {
+            long mask = -1L;
+            if (i == loWord) {
+                mask &= -1L << lo;
+            }
+            if (i == hiWord) {
+                mask &= -1L >>> (WORD_BITS - 1 - (hi & (WORD_BITS - 1)));
+            }
+            if (value) {
+                mWords[i] |= mask;
+            } else {
+                mWords[i] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * 保证位图覆盖[from, to]，起点按64对齐
+     * 需要扩大时向扩大的方向至少增加原来的长度，从某一天开始逐天向外设置时复制的总量是线性的
+     */
+    private void ensureRange(int from, int to) {
+        int length = mWords.length;
+        if (length == 0) {
+            mBaseEpochDay = alignDown(from);
+            mWords = new long[(to - mBaseEpochDay) / WORD_BITS + 1];
+            return;
+        }
+        int end = mBaseEpochDay + length * WORD_BITS;
+        if (from >= mBaseEpochDay && to < end) {
+            return;
+        }
+        int growBefore = from < mBaseEpochDay ? Math.max((mBaseEpochDay - alignDown(from)) / WORD_BITS, length) : 0;
+        int growAfter = to >= end ? Math.max((to - end) / WORD_BITS + 1, length) : 0;
+        long[] words = new long[growBefore + length + growAfter];
+        System.arraycopy(mWords, 0, words, growBefore, length);
+        mBaseEpochDay -= growBefore * WORD_BITS;
+        mWords = words;
+    }
+
+    private static int alignDown(int epochDay) {
+        return epochDay & ~(WORD_BITS - 1);
+    }
+}
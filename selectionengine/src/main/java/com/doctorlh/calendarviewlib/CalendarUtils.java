@@ -0,0 +1,181 @@
+package com.doctorlh.calendarviewlib;
+
+import java.util.Calendar;
+
+/**
+ * 日期工具类
+ */
+public class CalendarUtils {
+    /**
+     * 表示"没有日期"的天数，比任何有效日期都小
+     */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int DAYS_IN_WEEK = 7;
+    private static final int LAYOUT_CACHE_SIZE = 64;                            // 必须是2的幂
+    private static final MonthLayout[] sLayoutCache = new MonthLayout[LAYOUT_CACHE_SIZE];
+
+    private static int sTodayEpochDay = NO_DAY;                                 // 缓存的今天
+    private static long sTodayStartMillis;                                      // 今天开始的时间
+    private static long sTodayEndMillis;                                        // 明天开始的时间，超过后重新计算今天
+
+    public static int getDaysInMonth(int month, int year) {
+        switch (month) {
+            case Calendar.JANUARY:
+            case Calendar.MARCH:
+            case Calendar.MAY:
+            case Calendar.JULY:
+            case Calendar.AUGUST:
+            case Calendar.OCTOBER:
+            case Calendar.DECEMBER:
+                return 31;
+            case Calendar.APRIL:
+            case Calendar.JUNE:
+            case Calendar.SEPTEMBER:
+            case Calendar.NOVEMBER:
+                return 30;
+            case Calendar.FEBRUARY:
+                return ((year % 4 == 0 && year % 100 != 0) || (year % 400 == 0)) ? 29 : 28;
+            default:
+                throw new IllegalArgumentException("Invalid Month");
+        }
+    }
+
+    /**
+     * 年月日转换为从1970-01-01开始的天数，纯整数运算，与时区无关
+     *
+     * @param year
+     * @param month 月份，0~11，与Calendar一致
+     * @param day
+     * @return
+     */
+    public static int toEpochDay(int year, int month, int day) {
+        // 以3月为一年的开始，闰日落在年末
+        int y = month < Calendar.MARCH ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int monthFromMarch = month < Calendar.MARCH ? month + 10 : month - 2;
+        int dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * 今天（默认时区）对应的天数，同一天内只比较时间，不创建对象，过了零点后重新计算
+     *
+     * @return
+     */
+    public static synchronized int getTodayEpochDay() {
+        long now = System.currentTimeMillis();
+        if (sTodayEpochDay == NO_DAY || now < sTodayStartMillis || now >= sTodayEndMillis) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(now);
+            sTodayEpochDay = toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),
+                    calendar.get(Calendar.DAY_OF_MONTH));
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            sTodayStartMillis = calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            sTodayEndMillis = calendar.getTimeInMillis();
+        }
+        return sTodayEpochDay;
+    }
+
+    /**
+     * 两个日期包含首尾共多少天
+     *
+     * @param firstEpochDay 开始的天数
+     * @param lastEpochDay  结束的天数
+     * @return 同一天返回1
+     */
+    public static int countDays(int firstEpochDay, int lastEpochDay) {
+        return lastEpochDay - firstEpochDay + 1;
+    }
+
+    /**
+     * 某一天所在月份的序号（年份 * 12 + 月份），相邻月份的序号相差1
+     *
+     * @param epochDay 从1970-01-01开始的天数
+     * @return
+     */
+    public static int getMonthIndex(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthFromMarch = (5 * dayOfYear + 2) / 153;
+        // 以3月为一年开始的年份，1、2月属于下一年
+        int year = yearOfEra + era * 400 + (monthFromMarch >= 10 ? 1 : 0);
+        int month = monthFromMarch < 10 ? monthFromMarch + 2 : monthFromMarch - 10;
+        return year * 12 + month;
+    }
+
+    /**
+     * 某一天是星期几
+     *
+     * @param epochDay 从1970-01-01开始的天数
+     * @return Calendar.SUNDAY ~ Calendar.SATURDAY
+     */
+    public static int getDayOfWeek(int epochDay) {
+        // 1970-01-01是星期四
+        int offset = (epochDay + 4) % DAYS_IN_WEEK;
+        return (offset < 0 ? offset + DAYS_IN_WEEK : offset) + Calendar.SUNDAY;
+    }
+
+    /**
+     * 获取一个月的布局，结果按(年, 月, 一周第一天)缓存在一个固定大小的表里
+     *
+     * @param year
+     * @param month     0~11
+     * @param weekStart 一周的第一天，Calendar.SUNDAY ~ Calendar.SATURDAY
+     * @return
+     */
+    public static MonthLayout getMonthLayout(int year, int month, int weekStart) {
+        // 连续的月份落在不同的槽里，滚动时相邻的月份不会互相挤掉
+        int slot = ((year * 12 + month) * DAYS_IN_WEEK + weekStart) & (LAYOUT_CACHE_SIZE - 1);
+        MonthLayout layout = sLayoutCache[slot];
+        if (layout == null || layout.year != year || layout.month != month || layout.weekStart != weekStart) {
+            layout = new MonthLayout(year, month, weekStart);
+            sLayoutCache[slot] = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * 一个月的布局，只由年月和一周的第一天决定，创建后不再改变
+     */
+    public static final class MonthLayout {
+        public final int year;
+        public final int month;
+        public final int weekStart;
+        public final int firstEpochDay;         // 1号对应的天数
+        public final int dayOffset;             // 1号前面空出的格数
+        public final int daysInMonth;           // 这个月有多少天
+        public final int numRows;               // 占用的行数
+
+        MonthLayout(int year, int month, int weekStart) {
+            this.year = year;
+            this.month = month;
+            this.weekStart = weekStart;
+            firstEpochDay = toEpochDay(year, month, 1);
+            int offset = (getDayOfWeek(firstEpochDay) - weekStart) % DAYS_IN_WEEK;
+            dayOffset = offset < 0 ? offset + DAYS_IN_WEEK : offset;
+            daysInMonth = getDaysInMonth(month, year);
+            numRows = (dayOffset + daysInMonth + DAYS_IN_WEEK - 1) / DAYS_IN_WEEK;
+        }
+
+        /**
+         * 某一天是这个月的几号
+         *
+         * @param epochDay
+         * @return 1~daysInMonth，不在这个月返回-1
+         */
+        public int dayOfMonth(int epochDay) {
+            int day = epochDay - firstEpochDay + 1;
+            return day >= 1 && day <= daysInMonth ? day : -1;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.doctorlh.calendarviewlib;
+
+import java.io.Serializable;
+
+/**
+ * 多段选择的日期集合，按开始日期排序、互不重叠的区间，插入时自动合并相邻的区间
+ * 查询某一天是否被选中时二分查找
+ */
+public class DayIntervals implements Serializable {
+    private static final long serialVersionUID = 6470254370928366101L;
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] mStarts = new int[MIN_CAPACITY];      // 每段的开始天数（包含）
+    private int[] mEnds = new int[MIN_CAPACITY];        // 每段的结束天数（包含）
+    private int mSize;
+
+    public DayIntervals() {
+    }
+
+    public DayIntervals(DayIntervals other) {
+        set(other);
+    }
+
+    /**
+     * 区间的数量
+     *
+     * @return
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getStart(int index) {
+        return mStarts[index];
+    }
+
+    public int getEnd(int index) {
+        return mEnds[index];
+    }
+
+    /**
+     * 某一天是否被选中
+     *
+     * @param epochDay 从1970-01-01开始的天数
+     * @return
+     */
+    public boolean contains(int epochDay) {
+        return indexOf(epochDay) >= 0;
+    }
+
+    /**
+     * 某一天所在的区间
+     *
+     * @param epochDay
+     * @return 区间的下标，没有选中返回-1
+     */
+    public int indexOf(int epochDay) {
+        int index = floorIndex(epochDay);
+        return index >= 0 && mEnds[index] >= epochDay ? index : -1;
+    }
+
+    /**
+     * [from, to]之间是否有被选中的日期
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean intersects(int from, int to) {
+        int index = floorIndex(to);
+        return index >= 0 && mEnds[index] >= from;
+    }
+
+    /**
+     * 选中[from, to]，和已有的区间重叠或相邻时合并
+     *
+     * @param from 开始的天数（包含）
+     * @param to   结束的天数（包含）
+     */
+    public void add(int from, int to) {
+        if (from > to) {
+            return;
+        }
+        // [lo, hi)是需要合并的区间
+        int lo = floorIndex(from - 1);
+        if (lo < 0 || mEnds[lo] < from - 1) {
+            lo++;
+        }
+        int hi = floorIndex(to + 1) + 1;
+        if (lo < hi) {
+            from = Math.min(from, mStarts[lo]);
+            to = Math.max(to, mEnds[hi - 1]);
+        }
+        replace(lo, hi, 1);
+        mStarts[lo] = from;
+        mEnds[lo] = to;
+    }
+
+    /**
+     * 取消选中[from, to]，可能把一个区间拆成两个
+     *
+     * @param from 开始的天数（包含）
+     * @param to   结束的天数（包含）
+     */
+    public void remove(int from, int to) {
+        if (from > to) {
+            return;
+        }
+        int lo = floorIndex(from);
+        if (lo < 0 || mEnds[lo] < from) {
+            lo++;
+        }
+        int hi = floorIndex(to) + 1;
+        if (lo >= hi) {
+            return;
+        }
+        // 两端的区间可能只被去掉一部分
+        int headStart = mStarts[lo];
+        int tailEnd = mEnds[hi - 1];
+        boolean keepHead = headStart < from;
+        boolean keepTail = tailEnd > to;
+        int count = (keepHead ? 1 : 0) + (keepTail ? 1 : 0);
+        replace(lo, hi, count);
+        if (keepHead) {
+            mStarts[lo] = headStart;
+            mEnds[lo] = from - 1;
+        }
+        if (keepTail) {
+            int index = keepHead ? lo + 1 : lo;
+            mStarts[index] = to + 1;
+            mEnds[index] = tailEnd;
+        }
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * 复制另一个集合的内容
+     *
+     * @param other
+     */
+    public void set(DayIntervals other) {
+        if (other == this) {
+            return;
+        }
+        ensureCapacity(other.mSize);
+        System.arraycopy(other.mStarts, 0, mStarts, 0, other.mSize);
+        System.arraycopy(other.mEnds, 0, mEnds, 0, other.mSize);
+        mSize = other.mSize;
+    }
+
+    /**
+     * 开始日期不大于epochDay的最后一个区间
+     *
+     * @param epochDay
+     * @return 没有返回-1
+     */
+    private int floorIndex(int epochDay) {
+        int lo = 0;
+        int hi = mSize - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mStarts[mid] <= epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * 把[lo, hi)的区间替换成count个空位
+     */
+    private void replace(int lo, int hi, int count) {
+        int newSize = mSize - (hi - lo) + count;
+        ensureCapacity(newSize);
+        System.arraycopy(mStarts, hi, mStarts, lo + count, mSize - hi);
+        System.arraycopy(mEnds, hi, mEnds, lo + count, mSize - hi);
+        mSize = newSize;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mStarts.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, mStarts.length * 2);
+        int[] starts = new int[newCapacity];
+        int[] ends = new int[newCapacity];
+        System.arraycopy(mStarts, 0, starts, 0, mSize);
+        System.arraycopy(mEnds, 0, ends, 0, mSize);
+        mStarts = starts;
+        mEnds = ends;
+    }
+}
@@ -0,0 +1,235 @@
+package com.doctorlh.calendarviewlib;
+
+/**
+ * 选择日期的规则，只使用从1970-01-01开始的天数，不依赖Android，可以直接在JVM上测试
+ */
+public class SelectionEngine {
+    public static final int MODE_RANGE = 0;                     // 选择一段日期
+    public static final int MODE_MULTIPLE_DATES = 1;            // 选择多个单日，点击已选中的日期取消
+    public static final int MODE_MULTIPLE_RANGES = 2;           // 选择多段日期，每两次点击确定一段，点击已选中的日期取消
+
+    public static final int RESULT_FIRST = 0;                   // 选择了开始日期
+    public static final int RESULT_LAST = 1;                    // 选择了结束日期
+    public static final int RESULT_RESTART = 2;                 // 早于开始日期，重新选择开始日期
+    public static final int RESULT_ADDED = 3;                   // 多选时加入了一段日期
+    public static final int RESULT_REMOVED = 4;                 // 多选时取消了一个日期
+    public static final int FAIL_LEAST_DAYS = -1;               // 少于最少天数
+    public static final int FAIL_MOST_DAYS = -2;                // 多于最多天数
+    public static final int FAIL_INVALID = -3;                  // 包含不可选的日期
+    public static final int FAIL_END_BEFORE_START = -4;         // 结束日期早于开始日期
+
+    private int mFirst = CalendarUtils.NO_DAY;                  // 开始日期
+    private int mLast = CalendarUtils.NO_DAY;                   // 结束日期
+    private int mLeastDaysNum;                                  // 至少选择几天
+    private int mMostDaysNum = Integer.MAX_VALUE;               // 至多选择几天
+    private BlockedDays mBlockedDays;                           // 不可选的日期
+    private int mMode = MODE_RANGE;                             // 选择模式
+    private DayIntervals mIntervals;                            // 多选时已选中的日期，直接修改
+
+    /**
+     * 设置可以选择的天数范围
+     *
+     * @param leastDaysNum 至少选择几天
+     * @param mostDaysNum  至多选择几天
+     */
+    public void setDaysLimit(int leastDaysNum, int mostDaysNum) {
+        if (leastDaysNum > mostDaysNum) {
+            throw new IllegalArgumentException("可选择的最小天数不能小于最大天数");
+        }
+        mLeastDaysNum = leastDaysNum;
+        mMostDaysNum = mostDaysNum;
+    }
+
+    /**
+     * @param blockedDays 为null时所有日期都可选
+     */
+    public void setBlockedDays(BlockedDays blockedDays) {
+        mBlockedDays = blockedDays;
+    }
+
+    /**
+     * 设置选择模式，多选时需要同时设置{@link #setIntervals(DayIntervals)}
+     *
+     * @param mode MODE_开头的模式
+     */
+    public void setMode(int mode) {
+        if (mode < MODE_RANGE || mode > MODE_MULTIPLE_RANGES) {
+            throw new IllegalArgumentException("不支持的选择模式：" + mode);
+        }
+        mMode = mode;
+    }
+
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * 多选时已选中的日期，选择时直接修改这个集合
+     *
+     * @param intervals
+     */
+    public void setIntervals(DayIntervals intervals) {
+        mIntervals = intervals;
+    }
+
+    public DayIntervals getIntervals() {
+        return mIntervals;
+    }
+
+    /**
+     * 直接设置当前的选择，不做检查
+     * 多选时first是还没有确定结束日期的一段的开始日期
+     *
+     * @param first 开始日期，NO_DAY表示没有
+     * @param last  结束日期，NO_DAY表示没有
+     */
+    public void setSelection(int first, int last) {
+        mFirst = first;
+        mLast = first == CalendarUtils.NO_DAY ? CalendarUtils.NO_DAY : last;
+    }
+
+    /**
+     * 点击一个日期
+     *
+     * @param epochDay 点击的日期
+     * @return RESULT_开头的结果，或FAIL_开头的失败原因（小于0），失败时选择不变
+     */
+    public int select(int epochDay) {
+        if (mBlockedDays != null && mBlockedDays.isBlocked(epochDay)) {
+            return FAIL_INVALID;
+        }
+        if (mMode != MODE_RANGE) {
+            return selectMultiple(epochDay);
+        }
+        // 第一次选择开始日期，或者已经选完一段后重新选择开始日期
+        if (mFirst == CalendarUtils.NO_DAY || mLast != CalendarUtils.NO_DAY) {
+            mFirst = epochDay;
+            mLast = CalendarUtils.NO_DAY;
+            return RESULT_FIRST;
+        }
+        // 所选结束日期在开始日期之前,重置开始日期
+        if (epochDay < mFirst) {
+            mFirst = epochDay;
+            return RESULT_RESTART;
+        }
+
+        int result = checkRange(mFirst, epochDay);
+        if (result < 0) {
+            return result;
+        }
+        mLast = epochDay;
+        return RESULT_LAST;
+    }
+
+    /**
+     * 多选时点击一个日期
+     *
+     * @param epochDay 点击的日期
+     * @return
+     */
+    private int selectMultiple(int epochDay) {
+        if (mIntervals == null) {
+            throw new IllegalStateException("多选模式需要先设置选中日期的集合");
+        }
+        if (mFirst == CalendarUtils.NO_DAY) {
+            // 点击已选中的日期取消选中
+            if (mIntervals.contains(epochDay)) {
+                mIntervals.remove(epochDay, epochDay);
+                return RESULT_REMOVED;
+            }
+            if (mMode == MODE_MULTIPLE_DATES) {
+                mIntervals.add(epochDay, epochDay);
+                return RESULT_ADDED;
+            }
+            mFirst = epochDay;
+            return RESULT_FIRST;
+        }
+
+        // 两次点击的先后不影响这一段的范围
+        int from = Math.min(mFirst, epochDay);
+        int to = Math.max(mFirst, epochDay);
+        // 每一段都要满足天数限制
+        int result = checkRange(from, to);
+        if (result < 0) {
+            return result;
+        }
+        mIntervals.add(from, to);
+        mFirst = CalendarUtils.NO_DAY;
+        return RESULT_ADDED;
+    }
+
+    /**
+     * 检查一段日期能否被选择，不修改当前的选择
+     *
+     * @param first 开始日期，NO_DAY表示没有选择
+     * @param last  结束日期，NO_DAY表示只有开始日期
+     * @return 0表示可以选择，否则是FAIL_开头的失败原因
+     */
+    public int validateRange(int first, int last) {
+        if (first == CalendarUtils.NO_DAY) {
+            return 0;
+        }
+        if (last == CalendarUtils.NO_DAY) {
+            return mBlockedDays != null && mBlockedDays.isBlocked(first) ? FAIL_INVALID : 0;
+        }
+        if (last < first) {
+            return FAIL_END_BEFORE_START;
+        }
+        int result = checkRange(first, last);
+        return result < 0 ? result : 0;
+    }
+
+    /**
+     * 检查多选的日期能否被选择，多段选择时每一段都要满足天数限制
+     *
+     * @param intervals
+     * @return 0表示可以选择，否则是FAIL_开头的失败原因
+     */
+    public int validateIntervals(DayIntervals intervals) {
+        for (int i = 0; i < intervals.size(); i++) {
+            int from = intervals.getStart(i);
+            int to = intervals.getEnd(i);
+            if (mMode == MODE_MULTIPLE_RANGES) {
+                int result = checkRange(from, to);
+                if (result < 0) {
+                    return result;
+                }
+            } else if (mBlockedDays != null && mBlockedDays.containsBlocked(from, to)) {
+                return FAIL_INVALID;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 检查[from, to]是否满足天数限制并且不包含不可选的日期
+     *
+     * @param from
+     * @param to
+     * @return 满足时返回0，否则是FAIL_开头的失败原因
+     */
+    private int checkRange(int from, int to) {
+        int dayDiff = CalendarUtils.countDays(from, to);
+        // 所选的日期范围不能小于最小限制
+        if (dayDiff > 1 && mLeastDaysNum > dayDiff) {
+            return FAIL_LEAST_DAYS;
+        }
+        // 所选日期范围不能大于最大限制
+        if (dayDiff > 1 && mMostDaysNum < dayDiff) {
+            return FAIL_MOST_DAYS;
+        }
+        // 所选日期范围内不能包含不可选的日期
+        if (mBlockedDays != null && mBlockedDays.containsBlocked(from, to)) {
+            return FAIL_INVALID;
+        }
+        return 0;
+    }
+
+    public int getFirst() {
+        return mFirst;
+    }
+
+    public int getLast() {
+        return mLast;
+    }
+}
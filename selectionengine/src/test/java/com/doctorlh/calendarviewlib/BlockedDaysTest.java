@@ -0,0 +1,127 @@
+package com.doctorlh.calendarviewlib;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 不可选日期位图的测试，重点是64天一个long的边界
+ */
+public class BlockedDaysTest {
+
+    @Test
+    public void block_acrossWordBoundary() throws Exception {
+        BlockedDays blockedDays = new BlockedDays();
+        blockedDays.block(63);
+        blockedDays.block(64);
+
+        assertFalse(blockedDays.isBlocked(62));
+        assertTrue(blockedDays.isBlocked(63));
+        assertTrue(blockedDays.isBlocked(64));
+        assertFalse(blockedDays.isBlocked(65));
+
+        assertFalse(blockedDays.containsBlocked(0, 62));
+        assertTrue(blockedDays.containsBlocked(0, 63));
+        assertTrue(blockedDays.containsBlocked(64, 64));
+        assertFalse(blockedDays.containsBlocked(65, 200));
+
+        blockedDays.unblock(63);
+        assertFalse(blockedDays.containsBlocked(0, 63));
+        assertTrue(blockedDays.containsBlocked(63, 64));
+    }
+
+    @Test
+    public void blockRange_spanningSeveralWords() throws Exception {
+        BlockedDays blockedDays = new BlockedDays();
+        blockedDays.blockRange(10, 300);
+
+        assertFalse(blockedDays.containsBlocked(0, 9));
+        assertTrue(blockedDays.containsBlocked(9, 10));
+        assertTrue(blockedDays.isBlocked(127));
+        assertTrue(blockedDays.isBlocked(128));
+        assertTrue(blockedDays.containsBlocked(300, 1000));
+        assertFalse(blockedDays.containsBlocked(301, 1000));
+
+        // 中间整段可选后，只剩两端
+        blockedDays.unblockRange(60, 200);
+        assertFalse(blockedDays.containsBlocked(60, 200));
+        assertTrue(blockedDays.isBlocked(59));
+        assertTrue(blockedDays.isBlocked(201));
+        assertTrue(blockedDays.containsBlocked(0, 60));
+        assertTrue(blockedDays.containsBlocked(200, 1000));
+    }
+
+    @Test
+    public void block_beforeBase() throws Exception {
+        BlockedDays blockedDays = new BlockedDays();
+        blockedDays.block(1000);
+        // 1970年以前的日期是负数，位图的起点要向前扩展
+        blockedDays.block(-70);
+        blockedDays.block(900);
+
+        assertTrue(blockedDays.isBlocked(1000));
+        assertTrue(blockedDays.isBlocked(-70));
+        assertFalse(blockedDays.isBlocked(-71));
+        assertFalse(blockedDays.isBlocked(-69));
+        assertFalse(blockedDays.containsBlocked(-200, -71));
+        assertTrue(blockedDays.containsBlocked(-70, -70));
+        assertFalse(blockedDays.containsBlocked(-69, 899));
+        assertFalse(blockedDays.containsBlocked(999, 901));
+        assertTrue(blockedDays.containsBlocked(1000, 0));
+    }
+
+    @Test
+    public void randomOperations_matchSet() throws Exception {
+        Random random = new Random(20170427);
+        BlockedDays blockedDays = new BlockedDays();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(2000) - 1000;
+            int to = from + random.nextInt(i % 10 == 0 ? 300 : 3);
+            if (random.nextInt(3) == 0) {
+                blockedDays.unblockRange(from, to);
+                for (int day = from; day <= to; day++) {
+                    expected.remove(day);
+                }
+            } else {
+                blockedDays.blockRange(from, to);
+                for (int day = from; day <= to; day++) {
+                    expected.add(day);
+                }
+            }
+
+            int queryFrom = random.nextInt(2400) - 1200;
+            int queryTo = queryFrom + random.nextInt(200);
+            boolean contains = false;
+            for (int day = queryFrom; day <= queryTo && !contains; day++) {
+                contains = expected.contains(day);
+            }
+            assertEquals(contains, blockedDays.containsBlocked(queryFrom, queryTo));
+        }
+        for (int day = -1200; day <= 1200; day++) {
+            assertEquals(expected.contains(day), blockedDays.isBlocked(day));
+        }
+    }
+
+    @Test
+    public void block_outwardDayByDay() throws Exception {
+        BlockedDays blockedDays = new BlockedDays();
+        for (int i = 0; i < 20000; i++) {
+            blockedDays.block(i);
+            blockedDays.block(-i);
+        }
+        assertTrue(blockedDays.containsBlocked(-19999, -19999));
+        assertTrue(blockedDays.containsBlocked(19999, 19999));
+        assertFalse(blockedDays.containsBlocked(-30000, -20000));
+        assertFalse(blockedDays.containsBlocked(20000, 30000));
+        for (int i = -19999; i < 20000; i++) {
+            assertTrue(blockedDays.isBlocked(i));
+        }
+    }
+}
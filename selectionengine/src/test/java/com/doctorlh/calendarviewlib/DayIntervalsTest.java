@@ -0,0 +1,61 @@
+package com.doctorlh.calendarviewlib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多段选择日期集合的测试
+ */
+public class DayIntervalsTest {
+
+    @Test
+    public void add_mergesOverlappingAndAdjacent() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        intervals.add(10, 12);
+        intervals.add(20, 22);
+        intervals.add(0, 1);
+        assertEquals(3, intervals.size());
+
+        intervals.add(13, 19);
+        assertEquals(2, intervals.size());
+        assertEquals(10, intervals.getStart(1));
+        assertEquals(22, intervals.getEnd(1));
+
+        intervals.add(-5, 30);
+        assertEquals(1, intervals.size());
+        assertEquals(-5, intervals.getStart(0));
+        assertEquals(30, intervals.getEnd(0));
+    }
+
+    @Test
+    public void remove_splitsInterval() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        intervals.add(10, 20);
+        intervals.remove(15, 15);
+        assertEquals(2, intervals.size());
+        assertTrue(intervals.contains(14));
+        assertFalse(intervals.contains(15));
+        assertTrue(intervals.contains(16));
+
+        intervals.remove(5, 14);
+        assertEquals(1, intervals.size());
+        assertEquals(16, intervals.getStart(0));
+    }
+
+    @Test
+    public void containsAndIntersects() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        for (int i = 0; i < 200; i++) {
+            intervals.add(i * 10, i * 10 + 3);
+        }
+        assertEquals(200, intervals.size());
+        assertTrue(intervals.contains(1993));
+        assertFalse(intervals.contains(1994));
+        assertFalse(intervals.contains(-1));
+        assertTrue(intervals.intersects(1993, 1999));
+        assertFalse(intervals.intersects(1994, 1999));
+    }
+}
@@ -0,0 +1,133 @@
+package com.doctorlh.calendarviewlib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 范围选择规则的测试，直接在JVM上运行
+ */
+public class SelectionEngineTest {
+    private static final int DAY = CalendarUtils.toEpochDay(2017, Calendar.MAY, 1);
+
+    private SelectionEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new SelectionEngine();
+        engine.setDaysLimit(2, 10);
+    }
+
+    @Test
+    public void select_firstThenLast() throws Exception {
+        assertEquals(SelectionEngine.RESULT_FIRST, engine.select(DAY));
+        assertEquals(SelectionEngine.RESULT_LAST, engine.select(DAY + 3));
+        assertEquals(DAY, engine.getFirst());
+        assertEquals(DAY + 3, engine.getLast());
+
+        // 选完一段后重新开始
+        assertEquals(SelectionEngine.RESULT_FIRST, engine.select(DAY + 5));
+        assertEquals(DAY + 5, engine.getFirst());
+        assertEquals(CalendarUtils.NO_DAY, engine.getLast());
+    }
+
+    @Test
+    public void select_beforeFirst_restarts() throws Exception {
+        engine.select(DAY);
+        assertEquals(SelectionEngine.RESULT_RESTART, engine.select(DAY - 1));
+        assertEquals(DAY - 1, engine.getFirst());
+        assertEquals(CalendarUtils.NO_DAY, engine.getLast());
+    }
+
+    @Test
+    public void select_sameDay_isSingleDay() throws Exception {
+        engine.select(DAY);
+        assertEquals(SelectionEngine.RESULT_LAST, engine.select(DAY));
+        assertEquals(DAY, engine.getLast());
+    }
+
+    @Test
+    public void select_outsideLimits_fails() throws Exception {
+        engine.setDaysLimit(3, 10);
+        engine.select(DAY);
+        assertEquals(SelectionEngine.FAIL_LEAST_DAYS, engine.select(DAY + 1));
+        assertEquals(SelectionEngine.FAIL_MOST_DAYS, engine.select(DAY + 10));
+        // 失败时选择不变
+        assertEquals(DAY, engine.getFirst());
+        assertEquals(CalendarUtils.NO_DAY, engine.getLast());
+        assertEquals(SelectionEngine.RESULT_LAST, engine.select(DAY + 9));
+    }
+
+    @Test
+    public void select_blockedDays_fails() throws Exception {
+        BlockedDays blockedDays = new BlockedDays();
+        blockedDays.block(DAY + 4);
+        engine.setBlockedDays(blockedDays);
+
+        assertEquals(SelectionEngine.FAIL_INVALID, engine.select(DAY + 4));
+        engine.select(DAY);
+        assertEquals(SelectionEngine.FAIL_INVALID, engine.select(DAY + 6));
+        assertEquals(SelectionEngine.RESULT_LAST, engine.select(DAY + 3));
+    }
+
+    @Test
+    public void selectMultipleDates_togglesDay() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        engine.setMode(SelectionEngine.MODE_MULTIPLE_DATES);
+        engine.setIntervals(intervals);
+
+        assertEquals(SelectionEngine.RESULT_ADDED, engine.select(DAY));
+        assertEquals(SelectionEngine.RESULT_ADDED, engine.select(DAY + 1));
+        assertEquals(1, intervals.size());
+        assertEquals(SelectionEngine.RESULT_REMOVED, engine.select(DAY));
+        assertEquals(DAY + 1, intervals.getStart(0));
+        assertEquals(DAY + 1, intervals.getEnd(0));
+    }
+
+    @Test
+    public void selectMultipleRanges_mergesRanges() throws Exception {
+        DayIntervals intervals = new DayIntervals();
+        engine.setMode(SelectionEngine.MODE_MULTIPLE_RANGES);
+        engine.setIntervals(intervals);
+
+        assertEquals(SelectionEngine.RESULT_FIRST, engine.select(DAY + 5));
+        // 先点后面的日期也可以
+        assertEquals(SelectionEngine.RESULT_ADDED, engine.select(DAY + 3));
+        assertEquals(CalendarUtils.NO_DAY, engine.getFirst());
+
+        engine.select(DAY + 10);
+        assertEquals(SelectionEngine.FAIL_MOST_DAYS, engine.select(DAY + 30));
+        engine.select(DAY + 12);
+        assertEquals(2, intervals.size());
+
+        // 和前后两段相邻时合并成一段
+        engine.select(DAY + 6);
+        engine.select(DAY + 9);
+        assertEquals(1, intervals.size());
+        assertEquals(DAY + 3, intervals.getStart(0));
+        assertEquals(DAY + 12, intervals.getEnd(0));
+    }
+
+    @Test
+    public void validate_doesNotChangeSelection() throws Exception {
+        engine.select(DAY);
+        assertEquals(0, engine.validateRange(DAY + 1, DAY + 5));
+        assertEquals(SelectionEngine.FAIL_END_BEFORE_START, engine.validateRange(DAY + 5, DAY + 1));
+        assertEquals(SelectionEngine.FAIL_MOST_DAYS, engine.validateRange(DAY, DAY + 20));
+
+        DayIntervals intervals = new DayIntervals();
+        intervals.add(DAY, DAY + 3);
+        intervals.add(DAY + 10, DAY + 30);
+        engine.setMode(SelectionEngine.MODE_MULTIPLE_RANGES);
+        assertEquals(SelectionEngine.FAIL_MOST_DAYS, engine.validateIntervals(intervals));
+        // 多选单日时不限制天数
+        engine.setMode(SelectionEngine.MODE_MULTIPLE_DATES);
+        assertEquals(0, engine.validateIntervals(intervals));
+
+        assertEquals(DAY, engine.getFirst());
+        assertEquals(CalendarUtils.NO_DAY, engine.getLast());
+    }
+}